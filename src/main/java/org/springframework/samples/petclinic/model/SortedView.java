@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted, unmodifiable copy of a collection of entities, kept by the entity owning the
+ * collection so that a getter such as {@code Owner.getPets()} can return it again
+ * instead of copying and sorting the collection on every call.
+ * <p>
+ * The owning entity drops the view in the mutators of the collection and when the
+ * collection is replaced. Otherwise the view is reused as long as the collection is the
+ * same instance of the same size and the sorted elements are still in order, which takes
+ * one pass of comparisons over the view: a pet may be renamed while its owner holds it.
+ * Elements exchanged in the collection directly, without changing its size, are not
+ * noticed.
+ *
+ * @param <E> the type of the entities
+ */
+public final class SortedView<E> {
+
+	private final Collection<E> source;
+
+	private final List<E> sorted;
+
+	private SortedView(Collection<E> source, List<E> sorted) {
+		this.source = source;
+		this.sorted = sorted;
+	}
+
+	/**
+	 * Return {@code view} if it was built from {@code source}, which still has its size,
+	 * and is still in the order of {@code comparator}, or else a new view of them.
+	 * @param view the view returned for {@code source} before, or {@code null}
+	 */
+	public static <E> SortedView<E> of(SortedView<E> view, Collection<E> source, Comparator<? super E> comparator) {
+		if (view != null && view.isCurrent(source, comparator)) {
+			return view;
+		}
+		List<E> sorted = new ArrayList<>(source);
+		sorted.sort(comparator);
+		return new SortedView<>(source, Collections.unmodifiableList(sorted));
+	}
+
+	/**
+	 * Return the sorted elements, as an unmodifiable list.
+	 */
+	public List<E> getList() {
+		return sorted;
+	}
+
+	private boolean isCurrent(Collection<E> source, Comparator<? super E> comparator) {
+		if (source != this.source || source.size() != sorted.size()) {
+			return false;
+		}
+		for (int i = 1; i < sorted.size(); i++) {
+			if (comparator.compare(sorted.get(i - 1), sorted.get(i)) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -15,8 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,10 +28,9 @@ import javax.persistence.Table;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.model.Person;
+import org.springframework.samples.petclinic.model.SortedView;
 
 /**
  * Simple JavaBean domain object representing an owner.
@@ -46,6 +44,9 @@ import org.springframework.samples.petclinic.model.Person;
 @Table(name = "owners")
 public class Owner extends Person {
 
+	private static final Comparator<Pet> BY_NAME = Comparator.comparing(Pet::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@Column(name = "address")
 	@NotEmpty
 	private String address;
@@ -62,6 +63,8 @@ public class Owner extends Person {
 	@OneToMany(cascade = CascadeType.ALL, mappedBy = "owner")
 	private Set<Pet> pets;
 
+	private transient volatile SortedView<Pet> sortedPets;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -95,23 +98,47 @@ public class Owner extends Person {
 
 	protected void setPetsInternal(Set<Pet> pets) {
 		this.pets = pets;
+		this.sortedPets = null;
 	}
 
+	/**
+	 * Return the pets sorted by name, ignoring case. The list is unmodifiable and returned
+	 * again until the pets change.
+	 */
 	public List<Pet> getPets() {
-		List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-		PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedPets);
+		SortedView<Pet> view = SortedView.of(this.sortedPets, getPetsInternal(), BY_NAME);
+		this.sortedPets = view;
+		return view.getList();
+	}
+
+	/**
+	 * Return a copy of this owner holding {@code pets}, so that an owner shared through a
+	 * cache can be shown with a changed set of pets without being changed.
+	 */
+	Owner withPets(Set<Pet> pets) {
+		Owner owner = new Owner();
+		owner.setId(getId());
+		owner.setFirstName(getFirstName());
+		owner.setLastName(getLastName());
+		owner.address = this.address;
+		owner.city = this.city;
+		owner.telephone = this.telephone;
+		owner.setPetsInternal(pets);
+		return owner;
 	}
 
 	public void addPet(Pet pet) {
 		if (pet.isNew()) {
 			getPetsInternal().add(pet);
+			this.sortedPets = null;
 		}
 		pet.setOwner(this);
 	}
 
 	public void removePet(Pet pet) {
-		getPetsInternal().remove(pet);
+		if (getPetsInternal().remove(pet)) {
+			this.sortedPets = null;
+		}
 	}
 
 	/**
@@ -15,7 +15,9 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.utility.OwnerTimedCache;
+import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.samples.petclinic.utility.VisitTimedCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -28,7 +30,9 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Juergen Hoeller
@@ -43,11 +47,18 @@ class OwnerController {
 
 	private final OwnerRepository owners;
 
-	private VisitRepository visits;
+	private final OwnerTimedCache ownerCache;
 
-	public OwnerController(OwnerRepository clinicService, VisitRepository visits) {
+	private final PetTimedCache petCache;
+
+	private final VisitTimedCache visitCache;
+
+	public OwnerController(OwnerRepository clinicService, OwnerTimedCache ownerCache, PetTimedCache petCache,
+			VisitTimedCache visitCache) {
 		this.owners = clinicService;
-		this.visits = visits;
+		this.ownerCache = ownerCache;
+		this.petCache = petCache;
+		this.visitCache = visitCache;
 	}
 
 	@InitBinder
@@ -108,7 +119,7 @@ class OwnerController {
 
 	@GetMapping("/owners/{ownerId}/edit")
 	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.ownerCache.get(ownerId);
 		model.addAttribute(owner);
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
@@ -122,6 +133,11 @@ class OwnerController {
 		else {
 			owner.setId(ownerId);
 			this.owners.save(owner);
+			this.ownerCache.invalidate(ownerId);
+			// cached pets hold a copy of their owner, so they are read again as well
+			for (Pet pet : this.ownerCache.get(ownerId).getPets()) {
+				this.petCache.invalidate(pet.getId());
+			}
 			return "redirect:/owners/{ownerId}";
 		}
 	}
@@ -134,11 +150,13 @@ class OwnerController {
 	@GetMapping("/owners/{ownerId}")
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.ownerCache.get(ownerId);
+		// the cached owner and pets are shared, so the visits go into copies of them
+		Set<Pet> pets = new LinkedHashSet<>();
 		for (Pet pet : owner.getPets()) {
-			pet.setVisitsInternal(visits.findByPetId(pet.getId()));
+			pets.add(pet.withVisits(this.visitCache.get(pet.getId())));
 		}
-		mav.addObject(owner);
+		mav.addObject(owner.withPets(pets));
 		return mav;
 	}
 
@@ -16,9 +16,8 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -32,10 +31,9 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
+import org.springframework.samples.petclinic.model.SortedView;
 import org.springframework.samples.petclinic.visit.Visit;
 
 /**
@@ -49,6 +47,9 @@ import org.springframework.samples.petclinic.visit.Visit;
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+	private static final Comparator<Visit> LATEST_FIRST = Comparator
+		.comparing(Visit::getDate, Comparator.nullsLast(Comparator.naturalOrder())).reversed();
+
 	public Pet() {}
 
 	@Column(name = "birth_date")
@@ -66,6 +67,8 @@ public class Pet extends NamedEntity {
 	@Transient
 	private Set<Visit> visits = new LinkedHashSet<>();
 
+	private transient volatile SortedView<Visit> sortedVisits;
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -99,12 +102,32 @@ public class Pet extends NamedEntity {
 
 	protected void setVisitsInternal(Collection<Visit> visits) {
 		this.visits = new LinkedHashSet<>(visits);
+		this.sortedVisits = null;
+	}
+
+	/**
+	 * Return a copy of this pet holding {@code visits}, so that a pet shared through a
+	 * cache can be shown with its visits without being changed.
+	 */
+	Pet withVisits(Collection<Visit> visits) {
+		Pet pet = new Pet();
+		pet.setId(getId());
+		pet.setName(getName());
+		pet.birthDate = this.birthDate;
+		pet.type = this.type;
+		pet.owner = this.owner;
+		pet.setVisitsInternal(visits);
+		return pet;
 	}
 
+	/**
+	 * Return the visits, latest first. The list is unmodifiable and returned again until
+	 * the visits change.
+	 */
 	public List<Visit> getVisits() {
-		List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-		return Collections.unmodifiableList(sortedVisits);
+		SortedView<Visit> view = SortedView.of(this.sortedVisits, getVisitsInternal(), LATEST_FIRST);
+		this.sortedVisits = view;
+		return view.getList();
 	}
 
 	public List<Visit> getVisitsBetween(LocalDate start, LocalDate end) {
@@ -125,11 +148,15 @@ public class Pet extends NamedEntity {
 	}
 
 	public void removeVisit(Visit visit) {
-		getVisitsInternal().remove(visit);
+		if (getVisitsInternal().remove(visit)) {
+			this.sortedVisits = null;
+		}
 	}
 
 	public void addVisit(Visit visit) {
-		getVisitsInternal().add(visit);
+		if (getVisitsInternal().add(visit)) {
+			this.sortedVisits = null;
+		}
 		visit.setPetId(this.getId());
 	}
 
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.springframework.samples.petclinic.utility.PetTypeTimedCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
@@ -36,21 +37,21 @@ class PetController {
 
 	private static final String VIEWS_PETS_CREATE_OR_UPDATE_FORM = "pets/createOrUpdatePetForm";
 
-	private final PetRepository pets;
+	private final PetTypeTimedCache petTypes;
 
 	private final OwnerRepository owners;
 
 	private final PetService petService;
 
-	public PetController(PetRepository pets, OwnerRepository owners, PetService petService) {
-		this.pets = pets;
+	public PetController(PetTypeTimedCache petTypes, OwnerRepository owners, PetService petService) {
+		this.petTypes = petTypes;
 		this.owners = owners;
 		this.petService = petService;
 	}
 
 	@ModelAttribute("types")
 	public Collection<PetType> populatePetTypes() {
-		return this.pets.findPetTypes();
+		return this.petTypes.getPetTypes();
 	}
 
 	@ModelAttribute("owner")
@@ -2,9 +2,15 @@ package org.springframework.samples.petclinic.owner;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
+import org.springframework.samples.petclinic.utility.OwnerTimedCache;
 import org.springframework.samples.petclinic.utility.PetTimedCache;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class PetService {
 
@@ -12,21 +18,37 @@ public class PetService {
 
 	private final OwnerRepository owners;
 
+	private final OwnerTimedCache ownerCache;
+
+	private final EntityRegistry registry;
+
 	private final Logger log;
 
 	@Autowired
 	public PetService(
 		PetTimedCache pets,
 		OwnerRepository owners,
+		OwnerTimedCache ownerCache,
+		EntityRegistry registry,
 		Logger criticalLogger) {
 		this.pets = pets;
 		this.owners = owners;
+		this.ownerCache = ownerCache;
+		this.registry = registry;
 		this.log = criticalLogger;
 	}
 
+	/**
+	 * Return the owner with {@code ownerId}, loaded once per request. The pets of the
+	 * owner are registered as well, so {@link #findPet} returns them without loading.
+	 */
 	public Owner findOwner(int ownerId) {
 		log.info("find owner {}", ownerId);
-		return this.owners.findById(ownerId);
+		Owner owner = this.registry.find(Owner.class, ownerId, this.owners::findById);
+		if (owner != null) {
+			owner.getPets().forEach(this.registry::register);
+		}
+		return owner;
 	}
 
 	public Pet newPet(Owner owner) {
@@ -38,13 +60,22 @@ public class PetService {
 
 	public Pet findPet(int petId) {
 		log.info("find pet by id {}", petId);
-		return this.pets.get(petId);
+		return this.registry.find(Pet.class, petId, this.pets::get);
+	}
+
+	public List<Pet> findPets(Collection<Integer> petIds) {
+		log.info("find pets by ids {}", petIds);
+		return new ArrayList<>(this.pets.getAll(petIds).values());
 	}
 
 	public void savePet(Pet pet, Owner owner) {
 		log.info("save pet {}", pet.getId());
 		owner.addPet(pet);
 		this.pets.save(pet);
+		this.registry.evict(pet);
+		if (!owner.isNew()) {
+			this.ownerCache.invalidate(owner.getId());
+		}
 	}
 
 }
@@ -21,6 +21,8 @@ import java.util.Locale;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
+import org.springframework.samples.petclinic.utility.PetTypeTimedCache;
 import org.springframework.stereotype.Component;
 
 /**
@@ -36,11 +38,14 @@ import org.springframework.stereotype.Component;
 @Component
 public class PetTypeFormatter implements Formatter<PetType> {
 
-	private final PetRepository pets;
+	private final PetTypeTimedCache petTypes;
+
+	private final EntityRegistry registry;
 
 	@Autowired
-	public PetTypeFormatter(PetRepository pets) {
-		this.pets = pets;
+	public PetTypeFormatter(PetTypeTimedCache petTypes, EntityRegistry registry) {
+		this.petTypes = petTypes;
+		this.registry = registry;
 	}
 
 	@Override
@@ -50,7 +55,7 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
-		Collection<PetType> findPetTypes = this.pets.findPetTypes();
+		Collection<PetType> findPetTypes = this.registry.findAll(PetType.class, this.petTypes::getPetTypes);
 		for (PetType type : findPetTypes) {
 			if (type.getName().equals(text)) {
 				return type;
@@ -19,6 +19,8 @@ import java.util.Map;
 
 import javax.validation.Valid;
 
+import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.samples.petclinic.utility.VisitTimedCache;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
@@ -42,11 +44,14 @@ class VisitController {
 
 	private final VisitRepository visits;
 
-	private final PetRepository pets;
+	private final PetTimedCache pets;
 
-	public VisitController(VisitRepository visits, PetRepository pets) {
+	private final VisitTimedCache visitCache;
+
+	public VisitController(VisitRepository visits, PetTimedCache pets, VisitTimedCache visitCache) {
 		this.visits = visits;
 		this.pets = pets;
+		this.visitCache = visitCache;
 	}
 
 	@InitBinder
@@ -63,11 +68,12 @@ class VisitController {
 	 */
 	@ModelAttribute("visit")
 	public Visit loadPetWithVisit(@PathVariable("petId") int petId, Map<String, Object> model) {
-		Pet pet = this.pets.findById(petId);
-		pet.setVisitsInternal(this.visits.findByPetId(petId));
+		// the pet is shared through the cache, so it is shown as a copy holding its visits
+		// and the new visit only refers to it
+		Pet pet = this.pets.get(petId).withVisits(this.visitCache.get(petId));
 		model.put("pet", pet);
 		Visit visit = new Visit();
-		pet.addVisit(visit);
+		visit.setPetId(petId);
 		return visit;
 	}
 
@@ -85,6 +91,7 @@ class VisitController {
 		}
 		else {
 			this.visits.save(visit);
+			this.visitCache.invalidate(visit.getPetId());
 			return "redirect:/owners/{ownerId}";
 		}
 	}
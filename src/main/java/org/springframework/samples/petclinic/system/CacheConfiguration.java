@@ -16,40 +16,111 @@
 
 package org.springframework.samples.petclinic.system;
 
-import javax.cache.configuration.MutableConfiguration;
+import java.io.File;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
 
-import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
+ * creates the used caches for the application and enables statistics that become
  * accessible via JMX.
+ * <p>
+ * The JCache API itself cannot bound a cache, so the caches are configured through
+ * Ehcache, the JCache implementation in use, from their {@link JCacheSettings}: the size
+ * of each tier and the expiry. The cache manager is created here rather than by Spring
+ * Boot because a disk tier needs the manager to know its directory, which is read from
+ * {@code petclinic.jcache.disk-directory}. Spring sees each cache as a
+ * {@link VersionedCache}, so a load that overlaps a write is not cached.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
 class CacheConfiguration {
 
+	private static final String[] CACHE_NAMES = { "vets" };
+
+	@Bean(destroyMethod = "close")
+	public CacheManager jCacheCacheManager(Environment environment) {
+		Map<String, JCacheSettings> settings = JCacheSettings.of(environment);
+		for (String name : CACHE_NAMES) {
+			settings.putIfAbsent(name, new JCacheSettings());
+		}
+		String diskDirectory = environment.getProperty("petclinic.jcache.disk-directory", "");
+		settings.forEach((name, cacheSettings) -> cacheSettings.validate(name, StringUtils.hasLength(diskDirectory)));
+		EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+			.getCachingProvider(EhcacheCachingProvider.class.getName());
+		ClassLoader classLoader = getClass().getClassLoader();
+		DefaultConfiguration configuration = StringUtils.hasLength(diskDirectory)
+				? new DefaultConfiguration(classLoader, new CacheManagerPersistenceConfiguration(new File(diskDirectory)))
+				: new DefaultConfiguration(classLoader);
+		// a manager of its own, so that several application contexts can create their caches
+		CacheManager cacheManager = provider.getCacheManager(URI.create("urn:petclinic:" + UUID.randomUUID()),
+				configuration);
+		settings.forEach((name, cacheSettings) -> {
+			cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(cacheConfiguration(cacheSettings)));
+			cacheManager.enableStatistics(name, true);
+		});
+		return cacheManager;
+	}
+
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> {
-			cm.createCache("vets", cacheConfiguration());
+	public org.springframework.cache.CacheManager cacheManager(CacheManager jCacheCacheManager) {
+		return new JCacheCacheManager(jCacheCacheManager) {
+
+			@Override
+			protected Cache decorateCache(Cache cache) {
+				return new VersionedCache(super.decorateCache(cache));
+			}
+
 		};
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
-	 * <p>
-	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * Create the Ehcache configuration of a cache with the tiers and expiry of
+	 * {@code settings}. An entry expires {@link JCacheSettings#getTimeToLiveMillis() time
+	 * to live} after it was created or updated, and each read extends it by the
+	 * {@link JCacheSettings#getTimeToIdleMillis() time to idle} if one is set.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	static org.ehcache.config.CacheConfiguration<Object, Object> cacheConfiguration(JCacheSettings settings) {
+		ResourcePoolsBuilder resources = ResourcePoolsBuilder.newResourcePoolsBuilder();
+		if (settings.getHeapEntries() > 0) {
+			resources = resources.heap(settings.getHeapEntries(), EntryUnit.ENTRIES);
+		}
+		if (settings.getOffHeapMegabytes() > 0) {
+			resources = resources.offheap(settings.getOffHeapMegabytes(), MemoryUnit.MB);
+		}
+		if (settings.getDiskMegabytes() > 0) {
+			resources = resources.disk(settings.getDiskMegabytes(), MemoryUnit.MB, settings.isDiskPersistent());
+		}
+		Duration timeToLive = settings.getTimeToLiveMillis() > 0 ? Duration.ofMillis(settings.getTimeToLiveMillis())
+				: ExpiryPolicy.INFINITE;
+		Duration timeToIdle = settings.getTimeToIdleMillis() > 0 ? Duration.ofMillis(settings.getTimeToIdleMillis())
+				: null;
+		return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resources)
+			.withExpiry(ExpiryPolicyBuilder.expiry().create(timeToLive).access(timeToIdle).update(timeToLive).build())
+			.build();
 	}
 
 }
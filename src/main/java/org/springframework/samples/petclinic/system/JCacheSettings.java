@@ -0,0 +1,142 @@
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The settings of one JCache cache, read from the
+ * {@code petclinic.jcache.caches.<name>.*} properties. Each tier with a size of
+ * {@code 0} is left out, so a cache can live on the heap, off the heap, on disk, or in
+ * several of these tiers; at least one must be sized, and several need a heap tier on
+ * top. Settings that are not configured keep their defaults: a thousand entries on the
+ * heap that never expire.
+ */
+public class JCacheSettings {
+
+	private static final String PREFIX = "petclinic.jcache.caches";
+
+	private long heapEntries = 1000;
+
+	private long offHeapMegabytes;
+
+	private long diskMegabytes;
+
+	private boolean diskPersistent;
+
+	private long timeToLiveMillis;
+
+	private long timeToIdleMillis;
+
+	/**
+	 * Read the settings of every cache configured in {@code environment}, by name.
+	 */
+	public static Map<String, JCacheSettings> of(Environment environment) {
+		return Binder.get(environment).bind(PREFIX, Bindable.mapOf(String.class, JCacheSettings.class))
+				.map(settings -> (Map<String, JCacheSettings>) new LinkedHashMap<>(settings))
+				.orElseGet(LinkedHashMap::new);
+	}
+
+	/**
+	 * The number of entries to keep on the heap, {@code 0} for no heap tier.
+	 */
+	public long getHeapEntries() {
+		return heapEntries;
+	}
+
+	public JCacheSettings setHeapEntries(long heapEntries) {
+		this.heapEntries = heapEntries;
+		return this;
+	}
+
+	/**
+	 * The memory outside the heap to keep entries in, {@code 0} for no off-heap tier.
+	 */
+	public long getOffHeapMegabytes() {
+		return offHeapMegabytes;
+	}
+
+	public JCacheSettings setOffHeapMegabytes(long offHeapMegabytes) {
+		this.offHeapMegabytes = offHeapMegabytes;
+		return this;
+	}
+
+	/**
+	 * The disk space to keep entries in, {@code 0} for no disk tier. A disk tier needs
+	 * {@code petclinic.jcache.disk-directory}.
+	 */
+	public long getDiskMegabytes() {
+		return diskMegabytes;
+	}
+
+	public JCacheSettings setDiskMegabytes(long diskMegabytes) {
+		this.diskMegabytes = diskMegabytes;
+		return this;
+	}
+
+	/**
+	 * Whether the disk tier keeps its entries across restarts.
+	 */
+	public boolean isDiskPersistent() {
+		return diskPersistent;
+	}
+
+	public JCacheSettings setDiskPersistent(boolean diskPersistent) {
+		this.diskPersistent = diskPersistent;
+		return this;
+	}
+
+	/**
+	 * How long an entry stays cached after it was created or updated, {@code 0} for no
+	 * limit.
+	 */
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	public JCacheSettings setTimeToLiveMillis(long timeToLiveMillis) {
+		this.timeToLiveMillis = timeToLiveMillis;
+		return this;
+	}
+
+	/**
+	 * How long an entry stays cached after it was last read, {@code 0} to keep the time
+	 * to live.
+	 */
+	public long getTimeToIdleMillis() {
+		return timeToIdleMillis;
+	}
+
+	public JCacheSettings setTimeToIdleMillis(long timeToIdleMillis) {
+		this.timeToIdleMillis = timeToIdleMillis;
+		return this;
+	}
+
+	/**
+	 * Check that Ehcache can build the tiers of the cache {@code name}: at least one tier,
+	 * a heap tier on top of an off-heap and a disk tier, and a disk directory for a disk
+	 * tier.
+	 * @param diskDirectory whether {@code petclinic.jcache.disk-directory} is set
+	 * @throws IllegalStateException naming the property to change
+	 */
+	void validate(String name, boolean diskDirectory) {
+		String prefix = PREFIX + "." + name + ".";
+		int tiers = (heapEntries > 0 ? 1 : 0) + (offHeapMegabytes > 0 ? 1 : 0) + (diskMegabytes > 0 ? 1 : 0);
+		if (tiers == 0) {
+			throw new IllegalStateException("Cache " + name + " has no tier, set " + prefix + "heap-entries, "
+					+ prefix + "off-heap-megabytes or " + prefix + "disk-megabytes above 0");
+		}
+		if (tiers > 1 && heapEntries <= 0) {
+			throw new IllegalStateException("Cache " + name + " needs a heap tier on top of its other tiers, set "
+					+ prefix + "heap-entries above 0");
+		}
+		if (diskMegabytes > 0 && !diskDirectory) {
+			throw new IllegalStateException("Cache " + name + " has a disk tier of " + prefix
+					+ "disk-megabytes=" + diskMegabytes + " but petclinic.jcache.disk-directory is not set");
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A {@link Cache} that only keeps a value loaded through {@link #get(Object, Callable)}
+ * if the cache was not written to while it was loading. Every put, evict and clear
+ * counts as a new version of the cache, and a load that started at an older version is
+ * returned to its caller but not cached, so a load that read the data store before a
+ * change committed cannot replace the update or eviction that followed the change.
+ * <p>
+ * Only {@code @Cacheable(sync = true)} methods load through
+ * {@link #get(Object, Callable)}. Unlike the JCache cache it wraps, concurrent misses
+ * may load the same key more than once.
+ */
+public class VersionedCache implements Cache {
+
+	private final Cache cache;
+
+	private long version;
+
+	public VersionedCache(Cache cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public String getName() {
+		return this.cache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.cache.getNativeCache();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		return this.cache.get(key);
+	}
+
+	@Override
+	public <T> T get(Object key, Class<T> type) {
+		return this.cache.get(key, type);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper cached = this.cache.get(key);
+		if (cached != null) {
+			return (T) cached.get();
+		}
+		long started;
+		synchronized (this) {
+			started = this.version;
+		}
+		T value;
+		try {
+			value = valueLoader.call();
+		}
+		catch (Exception ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		synchronized (this) {
+			if (this.version == started) {
+				this.cache.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public synchronized void put(Object key, Object value) {
+		this.version++;
+		this.cache.put(key, value);
+	}
+
+	@Override
+	public synchronized ValueWrapper putIfAbsent(Object key, Object value) {
+		this.version++;
+		return this.cache.putIfAbsent(key, value);
+	}
+
+	@Override
+	public synchronized void evict(Object key) {
+		this.version++;
+		this.cache.evict(key);
+	}
+
+	@Override
+	public synchronized boolean evictIfPresent(Object key) {
+		this.version++;
+		return this.cache.evictIfPresent(key);
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.version++;
+		this.cache.clear();
+	}
+
+	@Override
+	public synchronized boolean invalidate() {
+		this.version++;
+		return this.cache.invalidate();
+	}
+
+}
@@ -0,0 +1,166 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the background work of all timed caches: one thread executes the periodic
+ * maintenance every cache registers, such as advancing its expiry wheel, and a small
+ * bounded pool runs refresh-ahead reloads.
+ * <p>
+ * The threads are started and stopped with the application context. Caches may register
+ * before the scheduler is started; their tasks begin to run once it is. After a stop,
+ * {@link #execute} rejects all work.
+ */
+@Component
+public class CacheScheduler implements SmartLifecycle, Executor {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheScheduler.class);
+
+	private static final String MAINTENANCE_THREAD_PREFIX = "cache-maintenance-";
+
+	private static final String REFRESH_THREAD_PREFIX = "cache-refresh-";
+
+	private static final int REFRESH_THREADS = 2;
+
+	private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+	private final Set<Registration> registrations = new LinkedHashSet<>();
+
+	private ScheduledThreadPoolExecutor maintenance;
+
+	private volatile ThreadPoolExecutor refresh;
+
+	/**
+	 * Run {@code task} every {@code periodMillis} while the scheduler is running.
+	 * @return the registration to cancel once the task is no longer needed
+	 */
+	public synchronized Registration register(Runnable task, long periodMillis) {
+		Registration registration = new Registration(task, periodMillis);
+		registrations.add(registration);
+		if (maintenance != null) {
+			registration.scheduleOn(maintenance);
+		}
+		return registration;
+	}
+
+	/**
+	 * Run {@code task} on the refresh pool.
+	 * @throws RejectedExecutionException if the pool is saturated or not running
+	 */
+	@Override
+	public void execute(Runnable task) {
+		ThreadPoolExecutor executor = refresh;
+		if (executor == null) {
+			throw new RejectedExecutionException("Cache scheduler is not running");
+		}
+		executor.execute(task);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (maintenance != null) {
+			return;
+		}
+		maintenance = new ScheduledThreadPoolExecutor(1, threadFactory(MAINTENANCE_THREAD_PREFIX));
+		maintenance.setRemoveOnCancelPolicy(true);
+		refresh = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), threadFactory(REFRESH_THREAD_PREFIX));
+		refresh.allowCoreThreadTimeOut(true);
+		for (Registration registration : registrations) {
+			registration.scheduleOn(maintenance);
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (maintenance == null) {
+			return;
+		}
+		ThreadPoolExecutor refreshPool = refresh;
+		refresh = null;
+		maintenance.shutdownNow();
+		refreshPool.shutdownNow();
+		try {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+			if (!maintenance.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+					|| !refreshPool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				log.warn("Cache scheduler threads did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		maintenance = null;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return maintenance != null;
+	}
+
+	private static CustomizableThreadFactory threadFactory(String prefix) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+	/**
+	 * A periodic task registered with the scheduler.
+	 */
+	public final class Registration {
+
+		private final Runnable task;
+
+		private final long periodMillis;
+
+		private ScheduledFuture<?> future;
+
+		private Registration(Runnable task, long periodMillis) {
+			this.task = task;
+			this.periodMillis = periodMillis;
+		}
+
+		private void scheduleOn(ScheduledThreadPoolExecutor executor) {
+			future = executor.scheduleWithFixedDelay(this::run, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private void run() {
+			try {
+				task.run();
+			} catch (RuntimeException ex) {
+				// a failing run must not cancel the following ones
+				log.warn("Cache maintenance task failed", ex);
+			}
+		}
+
+		/**
+		 * Stop running the task.
+		 */
+		public void cancel() {
+			synchronized (CacheScheduler.this) {
+				registrations.remove(this);
+				if (future != null) {
+					future.cancel(false);
+					future = null;
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+/**
+ * The settings of one {@link TimedCache}, read from the {@code petclinic.cache.<name>.*}
+ * properties. Settings that are not configured keep their defaults: entries expire after
+ * ten seconds and the cache is unbounded, on the heap and not persisted.
+ */
+public class CacheSettings {
+
+	private static final String PREFIX = "petclinic.cache.";
+
+	private long expiryMillis = 10000;
+
+	private long maximumSize;
+
+	private int sketchWidth;
+
+	private double refreshAhead;
+
+	private long offHeapMegabytes;
+
+	private String snapshotFile = "";
+
+	private long snapshotMaxAgeMillis = 600000;
+
+	/**
+	 * Read the settings of the cache called {@code name} from {@code environment}.
+	 */
+	public static CacheSettings of(Environment environment, String name) {
+		return Binder.get(environment).bind(PREFIX + name, Bindable.ofInstance(new CacheSettings()))
+				.orElseGet(CacheSettings::new);
+	}
+
+	/**
+	 * How long an entry stays cached after it was loaded or written.
+	 */
+	public long getExpiryMillis() {
+		return expiryMillis;
+	}
+
+	public CacheSettings setExpiryMillis(long expiryMillis) {
+		this.expiryMillis = expiryMillis;
+		return this;
+	}
+
+	/**
+	 * The number of entries to keep at most, {@code 0} for no bound.
+	 */
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public CacheSettings setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+		return this;
+	}
+
+	/**
+	 * The width of the admission frequency sketch, {@code 0} to derive it from the
+	 * maximum size.
+	 */
+	public int getSketchWidth() {
+		return sketchWidth;
+	}
+
+	public CacheSettings setSketchWidth(int sketchWidth) {
+		this.sketchWidth = sketchWidth;
+		return this;
+	}
+
+	/**
+	 * The fraction of the expiry after which a hit reloads the entry in the background,
+	 * {@code 0} to let entries expire.
+	 */
+	public double getRefreshAhead() {
+		return refreshAhead;
+	}
+
+	public CacheSettings setRefreshAhead(double refreshAhead) {
+		this.refreshAhead = refreshAhead;
+		return this;
+	}
+
+	/**
+	 * The off-heap memory to keep entries in, {@code 0} to keep them on the heap.
+	 */
+	public long getOffHeapMegabytes() {
+		return offHeapMegabytes;
+	}
+
+	public CacheSettings setOffHeapMegabytes(long offHeapMegabytes) {
+		this.offHeapMegabytes = offHeapMegabytes;
+		return this;
+	}
+
+	/**
+	 * The file to keep the entries in across restarts, empty to start with an empty cache.
+	 */
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public CacheSettings setSnapshotFile(String snapshotFile) {
+		this.snapshotFile = snapshotFile;
+		return this;
+	}
+
+	/**
+	 * How old a snapshot may be to be restored.
+	 */
+	public long getSnapshotMaxAgeMillis() {
+		return snapshotMaxAgeMillis;
+	}
+
+	public CacheSettings setSnapshotMaxAgeMillis(long snapshotMaxAgeMillis) {
+		this.snapshotMaxAgeMillis = snapshotMaxAgeMillis;
+		return this;
+	}
+
+}
@@ -0,0 +1,169 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the records of a cache in a file across restarts, so that a new instance does not
+ * have to load every hot entry from the database again.
+ * <p>
+ * The file is written in one pass through a memory mapping and then moved over the
+ * previous snapshot. It holds a header (magic number, format, time written, number of
+ * records), the records as id, deadline, length and bytes, and a CRC-32 of everything
+ * before it. {@link #read} checks the header, the age and the checksum before handing out
+ * a single record, and skips records whose deadline has passed; a snapshot that fails any
+ * check is ignored, so a torn or stale file only costs a cold start.
+ */
+public class CacheSnapshot {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheSnapshot.class);
+
+	private static final int MAGIC = 0x50435331;
+
+	private static final int FORMAT = 2;
+
+	private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES;
+
+	private static final int CHECKSUM_BYTES = Long.BYTES;
+
+	private final Path file;
+
+	public CacheSnapshot(Path file) {
+		this.file = file;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Replace the snapshot with {@code records}, keyed by id.
+	 * @param now the time the snapshot is taken, checked against the maximum age on read
+	 */
+	public void write(Map<Integer, Record> records, long now) throws IOException {
+		long size = HEADER_BYTES + CHECKSUM_BYTES;
+		for (Record record : records.values()) {
+			size += Integer.BYTES * 2 + Long.BYTES + record.bytes.length;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Snapshot of " + size + " bytes does not fit into one mapping");
+		}
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path partial = Files.createTempFile(parent, file.getFileName().toString(), ".partial");
+		try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC).putInt(FORMAT).putLong(now).putInt(records.size());
+			for (Map.Entry<Integer, Record> record : records.entrySet()) {
+				byte[] bytes = record.getValue().bytes;
+				buffer.putInt(record.getKey()).putLong(record.getValue().deadline).putInt(bytes.length).put(bytes);
+			}
+			buffer.putLong(checksum(buffer, buffer.position()));
+			buffer.force();
+		}
+		catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(partial);
+			throw ex;
+		}
+		Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Pass every record of a valid snapshot that is still live at {@code now} to
+	 * {@code consumer}, together with its id.
+	 * @param maximumAgeMillis how old the snapshot may be to be used
+	 * @return the number of records read, {@code 0} if there is no valid snapshot
+	 */
+	public int read(long now, long maximumAgeMillis, RecordConsumer consumer) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+				return reject("it has an invalid size of " + size + " bytes");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			int end = (int) size - CHECKSUM_BYTES;
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+				return reject("it is not a snapshot of this format");
+			}
+			long writtenAt = buffer.getLong();
+			if (now - writtenAt > maximumAgeMillis) {
+				return reject("it was written " + (now - writtenAt) + " ms ago");
+			}
+			int count = buffer.getInt();
+			if (buffer.getLong(end) != checksum(buffer, end)) {
+				return reject("its checksum does not match");
+			}
+			// through Buffer, as the ByteBuffer overrides only exist since Java 9
+			((Buffer) buffer).limit(end);
+			int read = 0;
+			for (int i = 0; i < count; i++) {
+				int key = buffer.getInt();
+				long deadline = buffer.getLong();
+				byte[] record = new byte[buffer.getInt()];
+				buffer.get(record);
+				if (deadline > now) {
+					consumer.accept(key, record, deadline);
+					read++;
+				}
+			}
+			return read;
+		}
+		catch (NoSuchFileException ex) {
+			return 0;
+		}
+		catch (IOException | BufferUnderflowException | NegativeArraySizeException ex) {
+			return reject(ex.toString());
+		}
+	}
+
+	private int reject(String reason) {
+		log.warn("Ignoring cache snapshot " + file + " because " + reason);
+		return 0;
+	}
+
+	private static long checksum(ByteBuffer buffer, int end) {
+		CRC32 crc = new CRC32();
+		ByteBuffer content = buffer.duplicate();
+		((Buffer) content).position(0).limit(end);
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	/**
+	 * The encoded value of a cache entry and the time it expires at.
+	 */
+	public static final class Record {
+
+		private final byte[] bytes;
+
+		private final long deadline;
+
+		public Record(byte[] bytes, long deadline) {
+			this.bytes = bytes;
+			this.deadline = deadline;
+		}
+
+	}
+
+	@FunctionalInterface
+	public interface RecordConsumer {
+
+		void accept(int key, byte[] record, long deadline);
+
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing how well a cache performs. Updates are cheap enough to be made on
+ * every lookup.
+ * <p>
+ * Misses are lookups that had to wait for a load; reloads that refresh-ahead runs in the
+ * background while the cached value is served are counted as refreshes instead. Puts are
+ * values written through to the cache after they were saved.
+ */
+public class CacheStatistics {
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder puts = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder refreshes = new LongAdder();
+
+	private final LongAdder refreshFailures = new LongAdder();
+
+	public void recordHit() {
+		hits.increment();
+	}
+
+	public void recordMiss() {
+		misses.increment();
+	}
+
+	public void recordPut() {
+		puts.increment();
+	}
+
+	public void recordEviction() {
+		evictions.increment();
+	}
+
+	public void recordRefresh() {
+		refreshes.increment();
+	}
+
+	public void recordRefreshFailure() {
+		refreshFailures.increment();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getPutCount() {
+		return puts.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	public long getRefreshFailureCount() {
+		return refreshFailures.sum();
+	}
+
+	/**
+	 * Return the share of lookups answered from memory, {@code 1.0} before the first one.
+	 */
+	public double getHitRatio() {
+		long hitCount = getHitCount();
+		long requests = hitCount + getMissCount();
+		return requests == 0 ? 1.0 : (double) hitCount / requests;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHitCount() + ", misses=" + getMissCount() + ", hitRatio="
+				+ String.format("%.3f", getHitRatio()) + ", puts=" + getPutCount() + ", evictions=" + getEvictionCount() + ", refreshes="
+				+ getRefreshCount() + ", refreshFailures=" + getRefreshFailureCount();
+	}
+
+}
@@ -0,0 +1,124 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link IdentityMap} that can be shared between threads, for example as a registry
+ * of entities that several requests look up. Entities are identified by their id in the
+ * same way; they are kept in a {@link ConcurrentHashMap} from id to entity, so lookups
+ * never block and updates of different ids rarely contend.
+ * <p>
+ * Iteration is weakly consistent: it never throws a
+ * {@link java.util.ConcurrentModificationException} and sees every entity that was
+ * present when it started and not removed since, and maybe some that were added later.
+ * {@link #sort} returns a sorted snapshot instead of reordering the shared map. Entities
+ * without an id cannot be added.
+ */
+public class ConcurrentIdentityMap<Entity extends BaseEntity> extends AbstractCollection<Entity> {
+
+	private final ConcurrentHashMap<Integer, Entity> entities = new ConcurrentHashMap<>();
+
+	@Override
+	public int size() {
+		return entities.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return entities.isEmpty();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof BaseEntity) {
+			Integer id = ((BaseEntity) o).getId();
+			return id != null && entities.containsKey(id);
+		}
+		return false;
+	}
+
+	/**
+	 * Return the entity with {@code id}, or {@code null} if there is none.
+	 */
+	public Entity get(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Add {@code entity}, replacing the entity with the same id if there is one.
+	 * @return always {@code true}
+	 * @throws IllegalArgumentException if the entity has no id
+	 */
+	@Override
+	public boolean add(Entity entity) {
+		entities.put(idOf(entity), entity);
+		return true;
+	}
+
+	/**
+	 * Add {@code entity} unless there already is an entity with its id.
+	 * @return the entity with that id that was already present, or {@code null} if
+	 * {@code entity} was added
+	 */
+	public Entity addIfAbsent(Entity entity) {
+		return entities.putIfAbsent(idOf(entity), entity);
+	}
+
+	/**
+	 * Replace the entity with the id of {@code entity}, if there is one.
+	 * @return the replaced entity, or {@code null} if nothing was replaced
+	 */
+	public Entity replace(Entity entity) {
+		return entities.replace(idOf(entity), entity);
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		if (object instanceof BaseEntity) {
+			Integer id = ((BaseEntity) object).getId();
+			return id != null && entities.remove(id) != null;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		entities.clear();
+	}
+
+	/**
+	 * Return a weakly consistent iterator over the entities. Its {@code remove} removes
+	 * the entity with the id last returned.
+	 */
+	@Override
+	public Iterator<Entity> iterator() {
+		return entities.values().iterator();
+	}
+
+	/**
+	 * Return the entities in the order of {@code comparator}, as a snapshot that does not
+	 * change with the map.
+	 */
+	public List<Entity> sort(Comparator<? super Entity> comparator) {
+		List<Entity> sorted = new ArrayList<>(entities.values());
+		sorted.sort(comparator);
+		return Collections.unmodifiableList(sorted);
+	}
+
+	private static Integer idOf(BaseEntity entity) {
+		Integer id = entity.getId();
+		if (id == null) {
+			throw new IllegalArgumentException("Entity " + entity + " has no id");
+		}
+		return id;
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the entities loaded while handling a request, so that later lookups of the
+ * same entity in that request return the same instance instead of loading it again.
+ * The entities of each type are kept in an {@link IdentityMap} stored as an attribute
+ * of the current request, and are dropped with it.
+ * <p>
+ * Outside of a request, for example in a scheduled task or a test that calls a service
+ * directly, nothing is remembered and every lookup goes to its loader.
+ */
+@Component
+public class EntityRegistry {
+
+	private static final String ATTRIBUTE = EntityRegistry.class.getName();
+
+	/**
+	 * Return the entity of {@code type} with {@code id} registered in this request, or
+	 * load and register it.
+	 * @param loader loads the entity, returning {@code null} if there is none
+	 */
+	public <E extends BaseEntity> E find(Class<E> type, int id, IntFunction<? extends E> loader) {
+		Entities entities = current();
+		if (entities == null) {
+			return loader.apply(id);
+		}
+		IdentityMap<E> map = entities.of(type);
+		E entity = map.get(id);
+		if (entity == null) {
+			entity = loader.apply(id);
+			if (entity != null) {
+				map.add(entity);
+			}
+		}
+		return entity;
+	}
+
+	/**
+	 * Return all entities of {@code type}, loading them on the first call in this request.
+	 * Entities that were registered before are returned in place of the loaded ones.
+	 * @param loader loads all entities of the type, in the order to return them
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends BaseEntity> List<E> findAll(Class<E> type, Supplier<? extends Collection<E>> loader) {
+		Entities entities = current();
+		if (entities == null) {
+			return new ArrayList<>(loader.get());
+		}
+		List<E> all = (List<E>) entities.all.get(type);
+		if (all == null) {
+			all = new ArrayList<>();
+			for (E loaded : loader.get()) {
+				all.add(register(entities.of(type), loaded));
+			}
+			all = Collections.unmodifiableList(all);
+			entities.all.put(type, all);
+		}
+		return all;
+	}
+
+	/**
+	 * Register {@code entity} in this request unless an entity of its type with its id
+	 * is registered already.
+	 * @return the registered entity with the id of {@code entity}
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends BaseEntity> E register(E entity) {
+		Entities entities = current();
+		if (entities == null || entity.isNew()) {
+			return entity;
+		}
+		return register(entities.of((Class<E>) entity.getClass()), entity);
+	}
+
+	private static <E extends BaseEntity> E register(IdentityMap<E> map, E entity) {
+		E registered = map.get(entity.getId());
+		if (registered == null) {
+			map.add(entity);
+			registered = entity;
+		}
+		return registered;
+	}
+
+	/**
+	 * Forget the entity with the type and id of {@code entity}, for example because it was
+	 * changed, so that the next lookup in this request loads it again.
+	 */
+	public void evict(BaseEntity entity) {
+		Entities entities = current();
+		if (entities != null && !entity.isNew()) {
+			entities.of(entity.getClass()).remove(entity);
+			entities.all.remove(entity.getClass());
+		}
+	}
+
+	/**
+	 * Return the entities of the current request, or {@code null} outside of a request.
+	 */
+	private static Entities current() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+		Entities entities = (Entities) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (entities == null) {
+			entities = new Entities();
+			attributes.setAttribute(ATTRIBUTE, entities, RequestAttributes.SCOPE_REQUEST);
+		}
+		return entities;
+	}
+
+	private static final class Entities {
+
+		private final Map<Class<?>, IdentityMap<?>> byType = new HashMap<>();
+
+		/**
+		 * The complete lists returned by {@link #findAll}, by type.
+		 */
+		private final Map<Class<?>, List<?>> all = new HashMap<>();
+
+		@SuppressWarnings("unchecked")
+		<E extends BaseEntity> IdentityMap<E> of(Class<E> type) {
+			return (IdentityMap<E>) byType.computeIfAbsent(type, key -> new IdentityMap<>());
+		}
+
+	}
+
+}
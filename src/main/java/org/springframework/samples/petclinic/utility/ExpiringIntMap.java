@@ -0,0 +1,321 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * A hash map from {@code int} keys, such as entity ids, to values that expire at a
+ * deadline. Keys, values and deadlines live in three parallel arrays that are probed
+ * linearly, so a lookup neither boxes its key nor allocates anything.
+ * <p>
+ * Lookups are optimistic reads of a {@link StampedLock} and only take the read lock when
+ * a write interfered; writes are serialized by the write lock. Removed keys leave a
+ * tombstone behind that is reused by later inserts or dropped when the table is rebuilt.
+ * Keys {@link Integer#MIN_VALUE} and {@code Integer.MIN_VALUE + 1} mark free and removed
+ * slots and cannot be stored.
+ *
+ * @param <V> the type of the values
+ */
+public class ExpiringIntMap<V> {
+
+	/**
+	 * The deadline of values that never expire.
+	 */
+	public static final long NEVER = Long.MAX_VALUE;
+
+	private static final int FREE = Integer.MIN_VALUE;
+
+	private static final int REMOVED = Integer.MIN_VALUE + 1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final StampedLock lock = new StampedLock();
+
+	private Table table = new Table(MIN_CAPACITY);
+
+	private int size;
+
+	private int tombstones;
+
+	/**
+	 * Return the value of {@code key} unless it is missing or its deadline is not after
+	 * {@code now}.
+	 */
+	public V get(int key, long now) {
+		long stamp = lock.tryOptimisticRead();
+		V value = find(key, now);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				value = find(key, now);
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Return the value of {@code key} whether or not it expired.
+	 */
+	public V get(int key) {
+		return get(key, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Map {@code key} to {@code value} until {@code deadline}.
+	 * @return the previous value, or {@code null} if there was none
+	 */
+	public V put(int key, V value, long deadline) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(key);
+			V previous = slot >= 0 ? table.valueAt(slot) : null;
+			store(key, slot, value, deadline);
+			return previous;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Map {@code key} to {@code value} until {@code deadline} if {@code condition} accepts
+	 * the current value, expired or not, or {@code null} if there is none. The condition
+	 * is evaluated under the write lock.
+	 * @return whether the value was stored
+	 */
+	public boolean putIf(int key, V value, long deadline, Predicate<? super V> condition) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(key);
+			if (!condition.test(slot >= 0 ? table.valueAt(slot) : null)) {
+				return false;
+			}
+			store(key, slot, value, deadline);
+			return true;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove {@code key}.
+	 * @return the removed value, or {@code null} if there was none
+	 */
+	public V remove(int key) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(key);
+			return slot >= 0 ? clear(slot) : null;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove {@code key} if {@code condition} accepts its value, expired or not. The
+	 * condition is evaluated under the write lock.
+	 * @return the removed value, or {@code null} if nothing was removed
+	 */
+	public V removeIf(int key, Predicate<? super V> condition) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(key);
+			return slot >= 0 && condition.test(table.valueAt(slot)) ? clear(slot) : null;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove {@code key} if it is still mapped until exactly {@code deadline}, so that an
+	 * expiry scheduled for an older value leaves a newer one alone.
+	 * @return the removed value, or {@code null} if nothing was removed
+	 */
+	public V expire(int key, long deadline) {
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(key);
+			return slot >= 0 && table.deadlines[slot] == deadline ? clear(slot) : null;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Return the number of keys, including those that expired but were not removed yet.
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return size;
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Pass every key whose deadline is after {@code now} to {@code visitor}, holding the
+	 * read lock meanwhile.
+	 */
+	public void forEach(long now, Visitor<? super V> visitor) {
+		long stamp = lock.readLock();
+		try {
+			for (int i = 0; i < table.keys.length; i++) {
+				int key = table.keys[i];
+				if (key != FREE && key != REMOVED && table.deadlines[i] > now) {
+					visitor.visit(key, table.valueAt(i), table.deadlines[i]);
+				}
+			}
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private V find(int key, long now) {
+		Table current = table;
+		int mask = current.keys.length - 1;
+		int index = spread(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			int found = current.keys[index];
+			if (found == key) {
+				return current.deadlines[index] > now ? current.valueAt(index) : null;
+			}
+			if (found == FREE) {
+				return null;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the slot holding {@code key}, or {@code -1} if it is not mapped.
+	 */
+	private int slotOf(int key) {
+		if (key == FREE || key == REMOVED) {
+			throw new IllegalArgumentException("Key " + key + " is reserved");
+		}
+		int mask = table.keys.length - 1;
+		int index = spread(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			int found = table.keys[index];
+			if (found == key) {
+				return index;
+			}
+			if (found == FREE) {
+				return -1;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void store(int key, int slot, V value, long deadline) {
+		if (slot < 0) {
+			if ((size + tombstones + 1) * 2 > table.keys.length) {
+				rebuild();
+			}
+			slot = insertionSlot(key);
+			if (table.keys[slot] == REMOVED) {
+				tombstones--;
+			}
+			table.keys[slot] = key;
+			size++;
+		}
+		table.values[slot] = value;
+		table.deadlines[slot] = deadline;
+	}
+
+	private int insertionSlot(int key) {
+		int mask = table.keys.length - 1;
+		int index = spread(key) & mask;
+		while (table.keys[index] != FREE && table.keys[index] != REMOVED) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private V clear(int slot) {
+		V value = table.valueAt(slot);
+		table.keys[slot] = REMOVED;
+		table.values[slot] = null;
+		table.deadlines[slot] = 0;
+		size--;
+		tombstones++;
+		return value;
+	}
+
+	/**
+	 * Copy the live keys into a table that is at most a quarter full.
+	 */
+	private void rebuild() {
+		Table previous = table;
+		int capacity = MIN_CAPACITY;
+		while (capacity < (size + 1) * 4) {
+			capacity <<= 1;
+		}
+		table = new Table(capacity);
+		tombstones = 0;
+		for (int i = 0; i < previous.keys.length; i++) {
+			int key = previous.keys[i];
+			if (key != FREE && key != REMOVED) {
+				int slot = insertionSlot(key);
+				table.keys[slot] = key;
+				table.values[slot] = previous.values[i];
+				table.deadlines[slot] = previous.deadlines[i];
+			}
+		}
+	}
+
+	private static int spread(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Receives the entries of the map in {@link #forEach}.
+	 */
+	@FunctionalInterface
+	public interface Visitor<V> {
+
+		void visit(int key, V value, long deadline);
+
+	}
+
+	/**
+	 * The three parallel arrays, replaced together so that an optimistic reader never
+	 * combines arrays of different lengths.
+	 */
+	private final class Table {
+
+		private final int[] keys;
+
+		private final Object[] values;
+
+		private final long[] deadlines;
+
+		Table(int capacity) {
+			this.keys = new int[capacity];
+			this.values = new Object[capacity];
+			this.deadlines = new long[capacity];
+			Arrays.fill(this.keys, FREE);
+		}
+
+		@SuppressWarnings("unchecked")
+		V valueAt(int slot) {
+			return (V) values[slot];
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.springframework.samples.petclinic.utility;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often a key was seen recently.
+ * Each {@code long} of the table holds sixteen counters and every key is counted in four
+ * of them; the estimate is the smallest of the four. Once the number of recorded events
+ * reaches ten times the expected number of keys all counters are halved, so the sketch
+ * forgets keys that stopped being popular.
+ * <p>
+ * This class is not thread-safe; {@link TinyLfuPolicy} only uses it under its lock.
+ */
+public class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long[] table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private int size;
+
+	/**
+	 * @param expectedKeys the number of keys the owning cache holds at most
+	 * @param width the number of table words, rounded up to a power of two; {@code 0}
+	 * derives it from {@code expectedKeys}
+	 */
+	public FrequencySketch(long expectedKeys, int width) {
+		int requested = width > 0 ? width : (int) Math.min(expectedKeys, 1 << 30);
+		int length = Integer.highestOneBit(Math.max(requested, 2) - 1) << 1;
+		this.table = new long[length];
+		this.tableMask = length - 1;
+		this.sampleSize = (int) Math.min(10L * Math.max(expectedKeys, 1), Integer.MAX_VALUE);
+	}
+
+	public int width() {
+		return table.length;
+	}
+
+	/**
+	 * Return the estimated number of occurrences of the key, at most 15.
+	 */
+	public int frequency(int keyHash) {
+		int hash = spread(keyHash);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record one occurrence of the key, halving all counters once the sample is full.
+	 */
+	public void increment(int keyHash) {
+		int hash = spread(keyHash);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++size == sampleSize) {
+			reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size >>>= 1;
+	}
+
+	private int indexOf(int hash, int depth) {
+		long h = (hash + SEEDS[depth]) * SEEDS[depth];
+		h += h >>> 32;
+		return ((int) h) & tableMask;
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+
+}
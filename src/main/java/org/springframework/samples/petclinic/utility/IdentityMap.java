@@ -2,61 +2,95 @@ package org.springframework.samples.petclinic.utility;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
 import java.util.*;
-import java.util.function.Supplier;
-import java.util.stream.Collector;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * This is a utility class to provide a sortable map
  * for more information see https://docs.oracle.com/javase/8/docs/api/java/util/Collection.html
+ * <p>
+ * Entities are identified by their id: adding an entity whose id is already present
+ * replaces the entity with that id in its place. The entities are kept in a list, and an
+ * index from id to position in that list makes {@link #contains}, {@link #add},
+ * {@link #get} and {@link #remove} constant time. Removing an entity moves the last one
+ * into its place, so removals do not preserve the order; call {@link #sort} to restore
+ * it.
+ * <p>
+ * {@link #spliterator} splits the list in halves, so {@code parallelStream()} spreads
+ * the entities evenly over the fork-join pool. {@link #addAll} looks up the ids of
+ * batches of at least {@link #PARALLEL_THRESHOLD} entities in parallel.
  */
 public class IdentityMap<Entity extends BaseEntity> implements Collection<Entity> {
 
+	/**
+	 * The batch size from which {@link #addAll} looks up the ids in parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 8192;
+
 	private ArrayList<Entity> entities = new ArrayList<>();
-	private Set<Integer> ids = new HashSet<>();
+	private Map<Integer, Integer> slots = new HashMap<>();
+	private int modCount;
 
 
 	@Override
 	public int size() {
-		return ids.size();
+		return entities.size();
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return ids.isEmpty();
+		return entities.isEmpty();
 	}
 
 	@Override
 	public boolean contains(Object o) {
 		if(o instanceof BaseEntity) {
-			return ids.contains(((BaseEntity) o).getId());
+			return slots.containsKey(((BaseEntity) o).getId());
 		} else {
 			return false;
 		}
 	}
 
+	/**
+	 * Return the entity with {@code id}, or {@code null} if there is none.
+	 */
+	public Entity get(Integer id) {
+		Integer slot = slots.get(id);
+		return slot != null ? entities.get(slot) : null;
+	}
+
 	@Override
 	public Iterator<Entity> iterator() {
-		throw new UnsupportedOperationException();
+		return new Itr();
+	}
+
+	@Override
+	public Spliterator<Entity> spliterator() {
+		return new Split(0, -1, 0);
 	}
 
 	@Override
 	public Object[] toArray() {
-		throw new UnsupportedOperationException();
+		return entities.toArray();
 	}
 
 	@Override
 	public <T> T[] toArray(T[] ts) {
-		throw new UnsupportedOperationException();
+		return entities.toArray(ts);
 	}
 
+	/**
+	 * Add {@code entity}, replacing the entity with the same id if there is one.
+	 * @return always {@code true}
+	 */
 	@Override
 	public boolean add(Entity entity) {
-		if(!ids.contains(entity)) {
-			ids.add(entity.getId());
+		Integer slot = slots.putIfAbsent(entity.getId(), entities.size());
+		if(slot == null) {
 			entities.add(entity);
+			modCount++;
 		} else {
-			entities.removeIf(entity::sameId);
-			this.add(entity);
+			entities.set(slot, entity);
 		}
 		return true;
 	}
@@ -64,13 +98,29 @@ public class IdentityMap<Entity extends BaseEntity> implements Collection<Entity
 	@Override
 	public boolean remove(Object object) {
 		if(object instanceof BaseEntity) {
-			if(ids.remove(((BaseEntity) object).getId())) {
-				return entities.removeIf(((BaseEntity) object)::sameId);
+			Integer slot = slots.remove(((BaseEntity) object).getId());
+			if(slot != null) {
+				removeSlot(slot);
+				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Remove the entity at {@code slot}, whose id was already dropped from the index, by
+	 * moving the last entity into its place.
+	 */
+	private void removeSlot(int slot) {
+		int last = entities.size() - 1;
+		Entity moved = entities.remove(last);
+		if(slot != last) {
+			entities.set(slot, moved);
+			slots.put(moved.getId(), slot);
+		}
+		modCount++;
+	}
+
 	@Override
 	public boolean containsAll(Collection<?> collection) {
 		for(Object object: collection) {
@@ -80,8 +130,15 @@ public class IdentityMap<Entity extends BaseEntity> implements Collection<Entity
 		return true;
 	}
 
+	/**
+	 * Add the entities of {@code collection} as if one by one. A large batch first looks
+	 * up the ids that are already present in parallel and then applies the batch.
+	 */
 	@Override
 	public boolean addAll(Collection<? extends Entity> collection) {
+		if(collection.size() >= PARALLEL_THRESHOLD) {
+			return addAllParallel(collection);
+		}
 		boolean collectionChaged = false;
 		for(Entity entity: collection) {
 			collectionChaged |= add(entity);
@@ -89,6 +146,26 @@ public class IdentityMap<Entity extends BaseEntity> implements Collection<Entity
 		return collectionChaged;
 	}
 
+	@SuppressWarnings("unchecked")
+	private boolean addAllParallel(Collection<? extends Entity> collection) {
+		Object[] batch = collection.toArray();
+		int[] found = IntStream.range(0, batch.length).parallel()
+			.map(i -> {
+				Integer slot = slots.get(((Entity) batch[i]).getId());
+				return slot != null ? slot : -1;
+			})
+			.toArray();
+		entities.ensureCapacity(entities.size() + batch.length);
+		for(int i = 0; i < batch.length; i++) {
+			if(found[i] >= 0) {
+				entities.set(found[i], (Entity) batch[i]);
+			} else {
+				add((Entity) batch[i]);
+			}
+		}
+		return batch.length > 0;
+	}
+
 	@Override
 	public boolean removeAll(Collection<?> collection) {
 		boolean collectionChaged = false;
@@ -100,16 +177,160 @@ public class IdentityMap<Entity extends BaseEntity> implements Collection<Entity
 
 	@Override
 	public boolean retainAll(Collection<?> collection) {
-		throw new UnsupportedOperationException();
+		boolean collectionChaged = false;
+		for(Iterator<Entity> iterator = iterator(); iterator.hasNext(); ) {
+			if(!collection.contains(iterator.next())) {
+				iterator.remove();
+				collectionChaged = true;
+			}
+		}
+		return collectionChaged;
 	}
 
 	@Override
 	public void clear() {
-		ids.clear();
+		slots.clear();
 		entities.clear();
+		modCount++;
 	}
 
 	public void sort(Comparator<Entity> comparator) {
 		entities.sort(comparator);
+		for(int slot = 0; slot < entities.size(); slot++) {
+			slots.put(entities.get(slot).getId(), slot);
+		}
+		modCount++;
+	}
+
+	@Override
+	public String toString() {
+		return entities.toString();
+	}
+
+	/**
+	 * Iterates the entities in their current order. Removing an entity moves the last one
+	 * into its place, so the iterator visits that position again.
+	 */
+	private final class Itr implements Iterator<Entity> {
+
+		private int cursor;
+
+		private int lastReturned = -1;
+
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return cursor < entities.size();
+		}
+
+		@Override
+		public Entity next() {
+			checkForComodification();
+			if(cursor >= entities.size()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor++;
+			return entities.get(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			slots.remove(entities.get(lastReturned).getId());
+			removeSlot(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+	}
+
+	/**
+	 * Splits the positions {@code [index, fence)} of the list in halves. The fence is
+	 * bound to the size when the spliterator is first used, and a traversal fails if the
+	 * map was modified since.
+	 */
+	private final class Split implements Spliterator<Entity> {
+
+		private int index;
+
+		private int fence;
+
+		private int expectedModCount;
+
+		Split(int index, int fence, int expectedModCount) {
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		private int getFence() {
+			if(fence < 0) {
+				expectedModCount = modCount;
+				fence = entities.size();
+			}
+			return fence;
+		}
+
+		@Override
+		public Spliterator<Entity> trySplit() {
+			int hi = getFence();
+			int mid = (index + hi) >>> 1;
+			if(index >= mid) {
+				return null;
+			}
+			Split prefix = new Split(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Entity> action) {
+			int hi = getFence();
+			if(index >= hi) {
+				return false;
+			}
+			Entity entity = entities.get(index++);
+			action.accept(entity);
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Entity> action) {
+			int hi = getFence();
+			List<Entity> list = entities;
+			for(; index < hi; index++) {
+				action.accept(list.get(index));
+			}
+			checkForComodification();
+		}
+
+		@Override
+		public long estimateSize() {
+			return getFence() - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
 	}
 }
@@ -0,0 +1,300 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link IdentityMap} for large numbers of entities. It behaves the same, but its
+ * index from id to position is an open addressing table of {@code int} ids and
+ * {@code int} positions, probed linearly, so no operation boxes an id and no entry needs
+ * an object of its own. The entities themselves stay in a dense array, which keeps
+ * iteration as fast as over a list.
+ * <p>
+ * Removed ids leave a tombstone in the index that is reused by later inserts or dropped
+ * when the index is rebuilt. Entities without an id cannot be added.
+ */
+public class IntIdentityMap<Entity extends BaseEntity> extends AbstractCollection<Entity> {
+
+	private static final int FREE = 0;
+
+	private static final int REMOVED = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] keys;
+
+	/**
+	 * The position of the entity of each key plus one, or {@link #FREE} or
+	 * {@link #REMOVED}.
+	 */
+	private int[] positions;
+
+	private Object[] entities;
+
+	private int size;
+
+	private int tombstones;
+
+	private int modCount;
+
+	private int indexRebuilds;
+
+	public IntIdentityMap() {
+		this(0);
+	}
+
+	/**
+	 * @param expectedSize the number of entities to make room for up front
+	 */
+	public IntIdentityMap(int expectedSize) {
+		allocateIndex(indexCapacityFor(expectedSize));
+		entities = new Object[Math.max(expectedSize, MIN_CAPACITY)];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof BaseEntity) {
+			Integer id = ((BaseEntity) o).getId();
+			return id != null && indexOf(id) >= 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the entity with {@code id}, or {@code null} if there is none.
+	 */
+	public Entity get(int id) {
+		int index = indexOf(id);
+		return index >= 0 ? entityAt(positions[index] - 1) : null;
+	}
+
+	/**
+	 * Add {@code entity}, replacing the entity with the same id if there is one.
+	 * @return always {@code true}
+	 * @throws IllegalArgumentException if the entity has no id
+	 */
+	@Override
+	public boolean add(Entity entity) {
+		Integer id = entity.getId();
+		if (id == null) {
+			throw new IllegalArgumentException("Entity " + entity + " has no id");
+		}
+		int index = indexOf(id);
+		if (index >= 0) {
+			entities[positions[index] - 1] = entity;
+			return true;
+		}
+		if ((size + tombstones + 1) * 2 > keys.length) {
+			rebuildIndex();
+		}
+		if (size == entities.length) {
+			entities = Arrays.copyOf(entities, size * 2);
+		}
+		index = insertionIndex(id);
+		if (positions[index] == REMOVED) {
+			tombstones--;
+		}
+		keys[index] = id;
+		positions[index] = size + 1;
+		entities[size++] = entity;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		if (object instanceof BaseEntity) {
+			Integer id = ((BaseEntity) object).getId();
+			int index = id != null ? indexOf(id) : -1;
+			if (index >= 0) {
+				removeAt(index);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove the entity of the index slot {@code index} by moving the last entity into its
+	 * position.
+	 */
+	private void removeAt(int index) {
+		int position = positions[index] - 1;
+		positions[index] = REMOVED;
+		tombstones++;
+		int last = --size;
+		if (position != last) {
+			Entity moved = entityAt(last);
+			entities[position] = moved;
+			positions[indexOf(moved.getId())] = position + 1;
+		}
+		entities[last] = null;
+		modCount++;
+	}
+
+	@Override
+	public void clear() {
+		allocateIndex(MIN_CAPACITY);
+		entities = new Object[MIN_CAPACITY];
+		size = 0;
+		tombstones = 0;
+		modCount++;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return Arrays.copyOf(entities, size);
+	}
+
+	@Override
+	public Iterator<Entity> iterator() {
+		return new Itr();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void sort(Comparator<? super Entity> comparator) {
+		Arrays.sort(entities, 0, size, (Comparator) comparator);
+		for (int position = 0; position < size; position++) {
+			positions[indexOf(entityAt(position).getId())] = position + 1;
+		}
+		modCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Entity entityAt(int position) {
+		return (Entity) entities[position];
+	}
+
+	/**
+	 * Return the index slot holding {@code id}, or {@code -1} if it is not present.
+	 */
+	private int indexOf(int id) {
+		int mask = keys.length - 1;
+		int index = spread(id) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			int position = positions[index];
+			if (position == FREE) {
+				return -1;
+			}
+			if (keys[index] == id && position != REMOVED) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int insertionIndex(int id) {
+		int mask = keys.length - 1;
+		int index = spread(id) & mask;
+		while (positions[index] > 0) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private void allocateIndex(int capacity) {
+		keys = new int[capacity];
+		positions = new int[capacity];
+	}
+
+	/**
+	 * Index the entities again in a table at most a quarter full, dropping the
+	 * tombstones, so that as many removals and additions as there are entities pass
+	 * before the next rebuild.
+	 */
+	private void rebuildIndex() {
+		allocateIndex(indexCapacityFor((size + 1) * 2));
+		tombstones = 0;
+		indexRebuilds++;
+		for (int position = 0; position < size; position++) {
+			int id = entityAt(position).getId();
+			int index = insertionIndex(id);
+			keys[index] = id;
+			positions[index] = position + 1;
+		}
+	}
+
+	/**
+	 * Return how often the index was rebuilt, for tests.
+	 */
+	int getIndexRebuilds() {
+		return indexRebuilds;
+	}
+
+	/**
+	 * Return the smallest power of two that is at least twice {@code size}, so that the
+	 * index is at most half full.
+	 */
+	private static int indexCapacityFor(int size) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < size * 2L && capacity < 1 << 30) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int spread(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Iterates the entities in their current order. Removing an entity moves the last one
+	 * into its place, so the iterator visits that position again.
+	 */
+	private final class Itr implements Iterator<Entity> {
+
+		private int cursor;
+
+		private int lastReturned = -1;
+
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size;
+		}
+
+		@Override
+		public Entity next() {
+			checkForComodification();
+			if (cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor++;
+			return entityAt(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			removeAt(indexOf(entityAt(lastReturned).getId()));
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,198 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stores byte records outside the Java heap, in direct {@link ByteBuffer} slabs that are
+ * carved into power-of-two chunks. Freed chunks are kept on one free list per chunk size
+ * and reused before a slab grows any further.
+ * <p>
+ * A record is addressed by its slab and offset packed into a {@code long}. Every record
+ * also carries a caller supplied stamp that is cleared when the record is freed; a read
+ * with an outdated stamp returns {@code null}, so a reader racing with the removal of a
+ * record sees a miss instead of somebody else's bytes.
+ * <p>
+ * Reads are optimistic reads of a {@link StampedLock} and only take the read lock when a
+ * write or free interfered while the record was copied; writes and frees are serialized
+ * by the write lock.
+ */
+public class OffHeapStore {
+
+	public static final long NO_ADDRESS = -1;
+
+	private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+	private static final int MIN_CHUNK_SHIFT = 6;
+
+	private final int slabSize;
+
+	private final int maximumSlabs;
+
+	private final StampedLock lock = new StampedLock();
+
+	private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+	private int slabOffset;
+
+	private final long[][] freeLists;
+
+	private final int[] freeCounts;
+
+	private long usedBytes;
+
+	/**
+	 * @param capacityBytes the most off-heap memory to allocate
+	 * @param slabSize the size of each direct buffer, rounded up to a power of two
+	 */
+	public OffHeapStore(long capacityBytes, int slabSize) {
+		this.slabSize = Integer.highestOneBit(Math.max(slabSize, 1 << MIN_CHUNK_SHIFT) - 1) << 1;
+		this.maximumSlabs = (int) Math.max(1, capacityBytes / this.slabSize);
+		int chunkClasses = Integer.numberOfTrailingZeros(this.slabSize) - MIN_CHUNK_SHIFT + 1;
+		this.freeLists = new long[chunkClasses][];
+		this.freeCounts = new int[chunkClasses];
+		for (int i = 0; i < chunkClasses; i++) {
+			this.freeLists[i] = new long[16];
+		}
+		this.slabOffset = this.slabSize;
+	}
+
+	/**
+	 * Copy {@code record} into the store.
+	 * @param stamp a non-zero value that has to be presented to read the record back
+	 * @return the address of the record, or {@link #NO_ADDRESS} if the store is full
+	 */
+	public long write(byte[] record, long stamp) {
+		int chunkClass = chunkClass(HEADER_BYTES + record.length);
+		if (chunkClass >= freeLists.length) {
+			return NO_ADDRESS;
+		}
+		long lockStamp = lock.writeLock();
+		try {
+			long address = allocate(chunkClass);
+			if (address == NO_ADDRESS) {
+				return NO_ADDRESS;
+			}
+			ByteBuffer slab = slabs[(int) (address >>> 32)].duplicate();
+			int offset = (int) address;
+			// through Buffer, as ByteBuffer.position(int) only exists since Java 9
+			((Buffer) slab).position(offset + HEADER_BYTES);
+			slab.put(record);
+			slab.putInt(offset, record.length);
+			slab.putLong(offset + Integer.BYTES, stamp);
+			usedBytes += chunkSize(chunkClass);
+			return address;
+		}
+		finally {
+			lock.unlockWrite(lockStamp);
+		}
+	}
+
+	/**
+	 * Return a copy of the record, or {@code null} if it was freed in the meantime.
+	 */
+	public byte[] read(long address, long stamp) {
+		long lockStamp = lock.tryOptimisticRead();
+		byte[] record = copy(address, stamp);
+		if (!lock.validate(lockStamp)) {
+			// the chunk may have been freed and reused while it was copied
+			lockStamp = lock.readLock();
+			try {
+				record = copy(address, stamp);
+			}
+			finally {
+				lock.unlockRead(lockStamp);
+			}
+		}
+		return record;
+	}
+
+	/**
+	 * Copy the record at {@code address} if it carries {@code stamp}. Without a lock the
+	 * header may be torn, so the length is checked before it is used.
+	 */
+	private byte[] copy(long address, long stamp) {
+		ByteBuffer slab = slabs[(int) (address >>> 32)].duplicate();
+		int offset = (int) address;
+		if (slab.getLong(offset + Integer.BYTES) != stamp) {
+			return null;
+		}
+		int length = slab.getInt(offset);
+		if (length < 0 || length > slabSize - offset - HEADER_BYTES) {
+			return null;
+		}
+		byte[] record = new byte[length];
+		((Buffer) slab).position(offset + HEADER_BYTES);
+		slab.get(record);
+		return record;
+	}
+
+	/**
+	 * Give the chunk of a record back to the store.
+	 */
+	public void free(long address) {
+		long lockStamp = lock.writeLock();
+		try {
+			ByteBuffer slab = slabs[(int) (address >>> 32)];
+			int offset = (int) address;
+			if (slab.getLong(offset + Integer.BYTES) == 0) {
+				return;
+			}
+			slab.putLong(offset + Integer.BYTES, 0);
+			int chunkClass = chunkClass(HEADER_BYTES + slab.getInt(offset));
+			if (freeCounts[chunkClass] == freeLists[chunkClass].length) {
+				freeLists[chunkClass] = Arrays.copyOf(freeLists[chunkClass], freeCounts[chunkClass] * 2);
+			}
+			freeLists[chunkClass][freeCounts[chunkClass]++] = address;
+			usedBytes -= chunkSize(chunkClass);
+		}
+		finally {
+			lock.unlockWrite(lockStamp);
+		}
+	}
+
+	public long getUsedBytes() {
+		long lockStamp = lock.readLock();
+		try {
+			return usedBytes;
+		}
+		finally {
+			lock.unlockRead(lockStamp);
+		}
+	}
+
+	public long getAllocatedBytes() {
+		return (long) slabs.length * slabSize;
+	}
+
+	private long allocate(int chunkClass) {
+		if (freeCounts[chunkClass] > 0) {
+			return freeLists[chunkClass][--freeCounts[chunkClass]];
+		}
+		int size = chunkSize(chunkClass);
+		if (slabOffset + size > slabSize) {
+			if (slabs.length == maximumSlabs) {
+				return NO_ADDRESS;
+			}
+			ByteBuffer[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+			grown[slabs.length] = ByteBuffer.allocateDirect(slabSize);
+			slabs = grown;
+			slabOffset = 0;
+		}
+		long address = ((long) (slabs.length - 1) << 32) | slabOffset;
+		slabOffset += size;
+		return address;
+	}
+
+	private static int chunkClass(int bytes) {
+		int shift = 32 - Integer.numberOfLeadingZeros(Math.max(bytes, 1 << MIN_CHUNK_SHIFT) - 1);
+		return shift - MIN_CHUNK_SHIFT;
+	}
+
+	private static int chunkSize(int chunkClass) {
+		return 1 << (chunkClass + MIN_CHUNK_SHIFT);
+	}
+
+}
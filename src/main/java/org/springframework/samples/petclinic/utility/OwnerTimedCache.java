@@ -0,0 +1,36 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps recently shown owners in memory together with their pets, configured by the
+ * {@code petclinic.cache.owners.*} properties.
+ * <p>
+ * Cached owners are shared by all requests and must not be used as form objects; an
+ * owner has to be invalidated whenever it or one of its pets is saved.
+ *
+ * @see TimedCache
+ */
+@Component
+public class OwnerTimedCache extends TimedCache<Owner> {
+
+	private static final String NAME = "owners";
+
+	public OwnerTimedCache(OwnerRepository repository, CacheScheduler scheduler) {
+		this(repository, scheduler, new CacheSettings());
+	}
+
+	@Autowired
+	public OwnerTimedCache(OwnerRepository repository, CacheScheduler scheduler, Environment environment) {
+		this(repository, scheduler, CacheSettings.of(environment, NAME));
+	}
+
+	public OwnerTimedCache(OwnerRepository repository, CacheScheduler scheduler, CacheSettings settings) {
+		super(NAME, repository::findById, scheduler, settings);
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes a {@link Pet} with its {@link PetType} and the scalar fields of its
+ * {@link Owner}. The owner's other pets and the visits are not part of the record; they
+ * are not fetched with a pet either.
+ */
+public class PetRecordCodec implements RecordCodec<Pet> {
+
+	@Override
+	public void write(Pet pet, DataOutput out) throws IOException {
+		out.writeInt(pet.getId());
+		writeString(out, pet.getName());
+		out.writeBoolean(pet.getBirthDate() != null);
+		if (pet.getBirthDate() != null) {
+			out.writeLong(pet.getBirthDate().toEpochDay());
+		}
+		PetType type = pet.getType();
+		out.writeBoolean(type != null);
+		if (type != null) {
+			writeId(out, type.getId());
+			writeString(out, type.getName());
+		}
+		Owner owner = pet.getOwner();
+		out.writeBoolean(owner != null);
+		if (owner != null) {
+			writeId(out, owner.getId());
+			writeString(out, owner.getFirstName());
+			writeString(out, owner.getLastName());
+			writeString(out, owner.getAddress());
+			writeString(out, owner.getCity());
+			writeString(out, owner.getTelephone());
+		}
+	}
+
+	@Override
+	public Pet read(DataInput in) throws IOException {
+		Pet pet = new Pet();
+		pet.setId(in.readInt());
+		pet.setName(readString(in));
+		if (in.readBoolean()) {
+			pet.setBirthDate(LocalDate.ofEpochDay(in.readLong()));
+		}
+		if (in.readBoolean()) {
+			PetType type = new PetType();
+			type.setId(readId(in));
+			type.setName(readString(in));
+			pet.setType(type);
+		}
+		if (in.readBoolean()) {
+			Owner owner = new Owner();
+			owner.setId(readId(in));
+			owner.setFirstName(readString(in));
+			owner.setLastName(readString(in));
+			owner.setAddress(readString(in));
+			owner.setCity(readString(in));
+			owner.setTelephone(readString(in));
+			// a pet with an id is only linked, not added to the owner's pets
+			owner.addPet(pet);
+		}
+		return pet;
+	}
+
+	private static void writeId(DataOutput out, Integer id) throws IOException {
+		out.writeInt(id != null ? id : -1);
+	}
+
+	private static Integer readId(DataInput in) throws IOException {
+		int id = in.readInt();
+		return id != -1 ? id : null;
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
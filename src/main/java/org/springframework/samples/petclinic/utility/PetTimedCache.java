@@ -1,99 +1,83 @@
 package org.springframework.samples.petclinic.utility;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.stereotype.Component;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Keeps recently used pets in memory, configured by the {@code petclinic.cache.pets.*}
+ * properties. Missing pets are loaded by id, several at once with {@code IN} queries.
+ * <p>
+ * Saved pets are written through to the cache. Pets can also be kept off the heap and in
+ * a snapshot across restarts, as compact {@link PetRecordCodec} records.
  *
  * @author Vivekananthan M
+ * @see TimedCache
  */
 @Component
-public class PetTimedCache {
+public class PetTimedCache extends TimedCache<Pet> {
 
-	private final static Logger log = LoggerFactory.getLogger(PetTimedCache.class);
-	private final PetRepository repository;
+	private static final String NAME = "pets";
 
-	private Map<Integer, Long> timeMap = new ConcurrentHashMap<Integer, Long>();
-	private Map<Integer, Pet> actualMap = new ConcurrentHashMap<Integer, Pet>();
+	private final PetRepository repository;
 
-	private long expiryInMillis = 10000;
-	private static final SimpleDateFormat SIMPLE_DATE_FORMAT = new SimpleDateFormat("hh:mm:ss:SSS");
+	public PetTimedCache(PetRepository repository, CacheScheduler scheduler) {
+		this(repository, scheduler, new CacheSettings());
+	}
 
 	@Autowired
-	public PetTimedCache(PetRepository repository) {
-		this.repository = repository;
-		initialize();
+	public PetTimedCache(PetRepository repository, CacheScheduler scheduler, Environment environment) {
+		this(repository, scheduler, CacheSettings.of(environment, NAME));
 	}
 
-	public PetTimedCache(long expiryInMillis, PetRepository repository) {
-		this.expiryInMillis = expiryInMillis;
+	public PetTimedCache(PetRepository repository, CacheScheduler scheduler, CacheSettings settings) {
+		super(NAME, loader(repository), new PetRecordCodec(), scheduler, settings);
 		this.repository = repository;
-		initialize();
 	}
 
-	void initialize() {
-		new CleanerThread().start();
-	}
+	private static Loader<Pet> loader(PetRepository repository) {
+		return new Loader<Pet>() {
 
-	private Pet put(Pet pet) {
-		Integer key = pet.getId();
-		Date date = new Date();
-		timeMap.put(key, date.getTime());
-		log.info("Inserting : " + SIMPLE_DATE_FORMAT.format(date) + " : " + key + " : " + pet);
-		Pet returnVal = actualMap.put(key, pet);
-		return returnVal;
-	}
+			@Override
+			public Pet load(int key) {
+				return repository.findById(key);
+			}
 
-	public Pet get(Integer key) {
-		if(actualMap.containsKey(key)) {
-			log.info("cache hit");
-			return actualMap.get(key);
-		} else {
-			log.info("cache miss");
-			Pet pet = repository.findById(key);
-			if(pet != null) {
-				put(pet);
+			@Override
+			public Map<Integer, Pet> loadAll(List<Integer> keys) {
+				Map<Integer, Pet> pets = new LinkedHashMap<>();
+				for (Pet pet : repository.findByIdIn(keys)) {
+					pets.put(pet.getId(), pet);
+				}
+				return pets;
 			}
-			return pet;
-		}
-	}
 
-	public void save(Pet pet) {
-		repository.save(pet);
+		};
 	}
 
-	class CleanerThread extends Thread {
-		@Override
-		public void run() {
-			log.info("Initiating Cleaner Thread...");
-			while (true) {
-				cleanMap();
-				try {
-					Thread.sleep(expiryInMillis / 2);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
+	/**
+	 * Save the pet and write it through to the cache. Loads of the same pet that are
+	 * still running will not install their result.
+	 */
+	public void save(Pet pet) {
+		try {
+			repository.save(pet);
+		} catch (RuntimeException ex) {
+			// the stored state is unknown now, let the next lookup read it again
+			if (!pet.isNew()) {
+				invalidate(pet.getId());
 			}
+			throw ex;
 		}
-
-		private void cleanMap() {
-			long currentTime = new Date().getTime();
-			for (Integer key : timeMap.keySet()) {
-				if (currentTime > (timeMap.get(key) + expiryInMillis)) {
-					Pet value = actualMap.remove(key);
-					timeMap.remove(key);
-					log.info("Removing : " + SIMPLE_DATE_FORMAT.format(new Date()) + " : " + key + " : " + value);
-				}
-			}
+		if (!pet.isNew()) {
+			put(pet.getId(), pet);
 		}
 	}
+
 }
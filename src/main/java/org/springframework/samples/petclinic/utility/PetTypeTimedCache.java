@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the list of all pet types in memory, configured by the
+ * {@code petclinic.cache.pet-types.*} properties. The list is cached as a single entry
+ * and cannot be modified.
+ *
+ * @see TimedCache
+ */
+@Component
+public class PetTypeTimedCache extends TimedCache<List<PetType>> {
+
+	private static final String NAME = "pet-types";
+
+	private static final int ALL = 0;
+
+	public PetTypeTimedCache(PetRepository repository, CacheScheduler scheduler) {
+		this(repository, scheduler, new CacheSettings());
+	}
+
+	@Autowired
+	public PetTypeTimedCache(PetRepository repository, CacheScheduler scheduler, Environment environment) {
+		this(repository, scheduler, CacheSettings.of(environment, NAME));
+	}
+
+	public PetTypeTimedCache(PetRepository repository, CacheScheduler scheduler, CacheSettings settings) {
+		super(NAME, key -> Collections.unmodifiableList(repository.findPetTypes()), scheduler, settings);
+	}
+
+	/**
+	 * Return all pet types, ordered by name.
+	 */
+	public List<PetType> getPetTypes() {
+		return get(ALL);
+	}
+
+}
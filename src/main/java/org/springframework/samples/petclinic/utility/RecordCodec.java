@@ -0,0 +1,19 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Turns a cached value into a compact binary record and back, for cache tiers that keep
+ * values outside the Java heap.
+ *
+ * @param <V> the type of the cached values
+ */
+public interface RecordCodec<V> {
+
+	void write(V value, DataOutput out) throws IOException;
+
+	V read(DataInput in) throws IOException;
+
+}
@@ -1,18 +1,33 @@
 package org.springframework.samples.petclinic.utility;
 
-import org.springframework.samples.petclinic.owner.PetRepository;
-
-import java.util.HashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 /**
  * this simple class shows the main idea behind a Dependency Injection library
+ * <p>
+ * It is meant for command line tools and batch jobs that need a few wired objects
+ * without the startup time of a Spring context. Every type is a singleton: it is
+ * provided once, by an instance, by a function or by calling its constructor with the
+ * instances of the constructor parameter types, and then returned on every request.
  */
 public abstract class SimpleDI {
 
+	private static final SimpleDI CONTAINER = new SimpleDIContainer();
+
+	/**
+	 * Return the container shared by the whole application.
+	 */
 	public static SimpleDI getDIContainer() throws Exception {
-		// todo return the singleton instance of your implementation of dependency injection container
-		throw new Exception("not implemented");
+		return CONTAINER;
+	}
+
+	/**
+	 * Return a new, empty container.
+	 */
+	public static SimpleDI newDIContainer() {
+		return new SimpleDIContainer();
 	}
 
 	public abstract void provideByInstance(Class<?> typeClass, Object instanceOfType);
@@ -20,4 +35,41 @@ public abstract class SimpleDI {
 	public abstract void provideByAConstructorFunction(Class<?> typeClass, Callable<Object> providerFunction);
 
 	public abstract Object getInstanceOf(Class<?> requiredType) throws Exception;
+
+	/**
+	 * Return a supplier that returns the instance of {@code type}, creating it when it is
+	 * first called instead of now. A failure to create it is thrown as an
+	 * {@link IllegalStateException}.
+	 */
+	public <T> Supplier<T> getProviderOf(Class<T> type) {
+		return () -> {
+			try {
+				return type.cast(getInstanceOf(type));
+			}
+			catch (RuntimeException ex) {
+				throw ex;
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException("Cannot create " + type.getName(), ex);
+			}
+		};
+	}
+
+	/**
+	 * Create {@code types} and everything they depend on up front, on the common
+	 * fork-join pool.
+	 * @see #initialize(ForkJoinPool, Class[])
+	 */
+	public StartupTimeline initialize(Class<?>... types) throws Exception {
+		return initialize(ForkJoinPool.commonPool(), types);
+	}
+
+	/**
+	 * Create {@code types} and everything they depend on up front. The dependency graph
+	 * is computed first, so a cycle fails before anything is created; then every type is
+	 * created on {@code pool} as soon as its dependencies are, so independent types are
+	 * created in parallel.
+	 * @return when and where each type was created
+	 */
+	public abstract StartupTimeline initialize(ForkJoinPool pool, Class<?>... types) throws Exception;
 }
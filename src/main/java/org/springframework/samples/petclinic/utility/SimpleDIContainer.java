@@ -0,0 +1,324 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * The {@link SimpleDI} implementation. A type without a provider is created by its
+ * constructor: the only public one, or else the one annotated with {@link Autowired},
+ * or else the one without parameters. The constructor is looked up once per type, for all
+ * containers, and turned into a {@link MethodHandle} taking its arguments as an array, so
+ * creating an instance involves no reflection. A constructor parameter of type
+ * {@code Supplier<T>} receives {@link #getProviderOf} of {@code T}, so {@code T} is only
+ * created when the supplier is first called.
+ * <p>
+ * Instances that were already created are read from a {@link ConcurrentHashMap}, which
+ * publishes them safely, without locking. Each type is created once, under a lock of its
+ * own, so threads creating different types do not wait for each other. Before the first
+ * type of a call is created, its constructor dependencies are checked for cycles, which
+ * would otherwise make two threads wait for each other's locks; dependencies that a
+ * provider function looks up itself are not checked.
+ */
+final class SimpleDIContainer extends SimpleDI {
+
+	private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private static final Class<?>[] NO_DEPENDENCIES = {};
+
+	private static final ClassValue<Factory> FACTORIES = new ClassValue<Factory>() {
+
+		@Override
+		protected Factory computeValue(Class<?> type) {
+			return new Factory(type);
+		}
+
+	};
+
+	/**
+	 * The types being created by the current thread, to report dependency cycles.
+	 */
+	private static final ThreadLocal<Set<Class<?>>> CREATING = ThreadLocal.withInitial(LinkedHashSet::new);
+
+	private final Map<Class<?>, Object> singletons = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, Callable<Object>> providers = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, Object> locks = new ConcurrentHashMap<>();
+
+	@Override
+	public void provideByInstance(Class<?> typeClass, Object instanceOfType) {
+		if (!typeClass.isInstance(instanceOfType)) {
+			throw new IllegalArgumentException(instanceOfType + " is not a " + typeClass.getName());
+		}
+		synchronized (lockOf(typeClass)) {
+			providers.remove(typeClass);
+			singletons.put(typeClass, instanceOfType);
+		}
+	}
+
+	@Override
+	public void provideByAConstructorFunction(Class<?> typeClass, Callable<Object> providerFunction) {
+		synchronized (lockOf(typeClass)) {
+			singletons.remove(typeClass);
+			providers.put(typeClass, providerFunction);
+		}
+	}
+
+	@Override
+	public Object getInstanceOf(Class<?> requiredType) throws Exception {
+		Object instance = singletons.get(requiredType);
+		return instance != null ? instance : create(requiredType);
+	}
+
+	private Object lockOf(Class<?> type) {
+		return locks.computeIfAbsent(type, key -> new Object());
+	}
+
+	private Object create(Class<?> type) throws Exception {
+		Set<Class<?>> creating = CREATING.get();
+		if (creating.isEmpty()) {
+			addToGraph(type, new LinkedHashMap<>(), new LinkedHashSet<>());
+		}
+		synchronized (lockOf(type)) {
+			Object instance = singletons.get(type);
+			if (instance != null) {
+				return instance;
+			}
+			if (!creating.add(type)) {
+				throw new IllegalStateException("Dependency cycle: " + cycle(creating, type));
+			}
+			try {
+				return instantiate(type);
+			}
+			finally {
+				creating.remove(type);
+			}
+		}
+	}
+
+	/**
+	 * Create {@code type} and register it. The caller holds the lock of the type.
+	 */
+	private Object instantiate(Class<?> type) throws Exception {
+		Callable<Object> provider = providers.get(type);
+		Object instance = provider != null ? provider.call() : construct(type);
+		if (!type.isInstance(instance)) {
+			throw new IllegalStateException("Provider of " + type.getName() + " returned " + instance);
+		}
+		singletons.put(type, instance);
+		return instance;
+	}
+
+	private Object construct(Class<?> type) throws Exception {
+		Factory factory = FACTORIES.get(type);
+		Object[] arguments = new Object[factory.parameterTypes.length];
+		for (int i = 0; i < arguments.length; i++) {
+			arguments[i] = factory.lazy[i] ? getProviderOf(factory.parameterTypes[i])
+				: getInstanceOf(factory.parameterTypes[i]);
+		}
+		return factory.newInstance(arguments);
+	}
+
+	@Override
+	public StartupTimeline initialize(ForkJoinPool pool, Class<?>... types) throws Exception {
+		Map<Class<?>, Class<?>[]> graph = new LinkedHashMap<>();
+		for (Class<?> type : types) {
+			addToGraph(type, graph, new LinkedHashSet<>());
+		}
+		StartupTimeline timeline = new StartupTimeline();
+		Map<Class<?>, CompletableFuture<?>> created = new HashMap<>();
+		for (Map.Entry<Class<?>, Class<?>[]> node : graph.entrySet()) {
+			Class<?> type = node.getKey();
+			CompletableFuture<?>[] dependencies = new CompletableFuture<?>[node.getValue().length];
+			for (int i = 0; i < dependencies.length; i++) {
+				dependencies[i] = created.get(node.getValue()[i]);
+			}
+			created.put(type, CompletableFuture.allOf(dependencies)
+				.thenRunAsync(() -> createInitialized(type, timeline), pool));
+		}
+		try {
+			CompletableFuture.allOf(created.values().toArray(new CompletableFuture<?>[0])).join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof Exception) {
+				throw (Exception) ex.getCause();
+			}
+			throw ex;
+		}
+		return timeline.finish();
+	}
+
+	/**
+	 * Add {@code type} to {@code graph} after the types it depends on, so that the graph
+	 * lists every type after its dependencies.
+	 * @param visiting the types whose dependencies are being added
+	 */
+	private void addToGraph(Class<?> type, Map<Class<?>, Class<?>[]> graph, Set<Class<?>> visiting) {
+		if (graph.containsKey(type)) {
+			return;
+		}
+		if (!visiting.add(type)) {
+			throw new IllegalStateException("Dependency cycle: " + cycle(visiting, type));
+		}
+		Class<?>[] dependencies = singletons.containsKey(type) || providers.containsKey(type) ? NO_DEPENDENCIES
+			: FACTORIES.get(type).dependencies;
+		for (Class<?> dependency : dependencies) {
+			addToGraph(dependency, graph, visiting);
+		}
+		visiting.remove(type);
+		graph.put(type, dependencies);
+	}
+
+	/**
+	 * Create {@code type}, whose dependencies were all created already.
+	 */
+	private void createInitialized(Class<?> type, StartupTimeline timeline) {
+		synchronized (lockOf(type)) {
+			if (singletons.containsKey(type)) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				instantiate(type);
+			}
+			catch (Exception ex) {
+				throw new CompletionException(ex);
+			}
+			timeline.record(type, start, System.nanoTime());
+		}
+	}
+
+	private static String cycle(Set<Class<?>> path, Class<?> type) {
+		List<String> names = new ArrayList<>();
+		boolean inCycle = false;
+		for (Class<?> created : path) {
+			inCycle |= created == type;
+			if (inCycle) {
+				names.add(created.getSimpleName());
+			}
+		}
+		names.add(type.getSimpleName());
+		return String.join(" -> ", names);
+	}
+
+	/**
+	 * The constructor of a type, as a handle that takes the arguments as an array.
+	 */
+	private static final class Factory {
+
+		/**
+		 * The types to pass to the constructor, or to supply for a lazy parameter.
+		 */
+		private final Class<?>[] parameterTypes;
+
+		/**
+		 * Whether each parameter is a {@code Supplier} of its type.
+		 */
+		private final boolean[] lazy;
+
+		/**
+		 * The types that must be created before the type itself.
+		 */
+		private final Class<?>[] dependencies;
+
+		private final MethodHandle handle;
+
+		Factory(Class<?> type) {
+			if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+				throw new IllegalStateException("No provider for " + type.getName());
+			}
+			Constructor<?> constructor = constructorOf(type);
+			constructor.setAccessible(true);
+			this.parameterTypes = constructor.getParameterTypes();
+			this.lazy = new boolean[parameterTypes.length];
+			List<Class<?>> dependencies = new ArrayList<>();
+			Type[] genericTypes = constructor.getGenericParameterTypes();
+			for (int i = 0; i < parameterTypes.length; i++) {
+				Class<?> supplied = parameterTypes[i] == Supplier.class && genericTypes.length == parameterTypes.length
+					? suppliedType(genericTypes[i]) : null;
+				if (supplied != null) {
+					parameterTypes[i] = supplied;
+					lazy[i] = true;
+				}
+				else {
+					dependencies.add(parameterTypes[i]);
+				}
+			}
+			this.dependencies = dependencies.toArray(NO_DEPENDENCIES);
+			try {
+				this.handle = MethodHandles.lookup().unreflectConstructor(constructor)
+					.asSpreader(Object[].class, parameterTypes.length).asType(FACTORY_TYPE);
+			}
+			catch (IllegalAccessException ex) {
+				throw new IllegalStateException("Cannot access the constructor of " + type.getName(), ex);
+			}
+		}
+
+		Object newInstance(Object[] arguments) throws Exception {
+			try {
+				return (Object) handle.invokeExact(arguments);
+			}
+			catch (Exception | Error ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+		/**
+		 * Return {@code T} of {@code Supplier<T>}, or {@code null} if it is not a class.
+		 */
+		private static Class<?> suppliedType(Type supplier) {
+			if (supplier instanceof ParameterizedType) {
+				Type supplied = ((ParameterizedType) supplier).getActualTypeArguments()[0];
+				if (supplied instanceof Class) {
+					return (Class<?>) supplied;
+				}
+			}
+			return null;
+		}
+
+		private static Constructor<?> constructorOf(Class<?> type) {
+			Constructor<?>[] constructors = type.getConstructors();
+			if (constructors.length == 1) {
+				return constructors[0];
+			}
+			Constructor<?> noArguments = null;
+			for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+				if (constructor.isAnnotationPresent(Autowired.class)) {
+					return constructor;
+				}
+				if (constructor.getParameterCount() == 0) {
+					noArguments = constructor;
+				}
+			}
+			if (noArguments == null) {
+				throw new IllegalStateException("No constructor to create " + type.getName() + " with");
+			}
+			return noArguments;
+		}
+
+	}
+
+}
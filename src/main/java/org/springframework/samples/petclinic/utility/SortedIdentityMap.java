@@ -0,0 +1,176 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * An {@link IdentityMap} that keeps its entities in the order of a comparator instead of
+ * sorting them on demand. The entities are held in a red-black tree ordered by the
+ * comparator and then by id, next to an index from id to entity, so adding, replacing
+ * and removing an entity take logarithmic time and iteration, {@link #first} and
+ * {@link #range} return the entities in order without sorting.
+ * <p>
+ * The position of an entity is fixed when it is added. An entity whose sort key changes
+ * while it is in the map must be added again, which moves it to its new position.
+ * Entities without an id cannot be added.
+ */
+public class SortedIdentityMap<Entity extends BaseEntity> extends AbstractCollection<Entity> {
+
+	private final NavigableSet<Entity> sorted;
+
+	private final Map<Integer, Entity> index = new HashMap<>();
+
+	/**
+	 * @param comparator the order of the entities; entities it considers equal are
+	 * ordered by id
+	 */
+	public SortedIdentityMap(Comparator<? super Entity> comparator) {
+		Comparator<Entity> byKey = comparator::compare;
+		this.sorted = new TreeSet<>(byKey.thenComparing(BaseEntity::getId,
+			Comparator.nullsFirst(Comparator.naturalOrder())));
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof BaseEntity) {
+			Integer id = ((BaseEntity) o).getId();
+			return id != null && index.containsKey(id);
+		}
+		return false;
+	}
+
+	/**
+	 * Return the entity with {@code id}, or {@code null} if there is none.
+	 */
+	public Entity get(int id) {
+		return index.get(id);
+	}
+
+	/**
+	 * Add {@code entity} in its position, replacing the entity with the same id if there
+	 * is one.
+	 * @return always {@code true}
+	 * @throws IllegalArgumentException if the entity has no id
+	 */
+	@Override
+	public boolean add(Entity entity) {
+		Integer id = entity.getId();
+		if (id == null) {
+			throw new IllegalArgumentException("Entity " + entity + " has no id");
+		}
+		Entity replaced = index.put(id, entity);
+		if (replaced != null) {
+			removeSorted(replaced);
+		}
+		sorted.add(entity);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		if (object instanceof BaseEntity) {
+			Integer id = ((BaseEntity) object).getId();
+			Entity removed = id != null ? index.remove(id) : null;
+			if (removed != null) {
+				removeSorted(removed);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove {@code entity} from the tree. If its sort key changed since it was added the
+	 * tree cannot find it, so it is searched for by identity instead.
+	 */
+	private void removeSorted(Entity entity) {
+		if (!sorted.remove(entity)) {
+			sorted.removeIf(candidate -> candidate == entity);
+		}
+	}
+
+	@Override
+	public void clear() {
+		sorted.clear();
+		index.clear();
+	}
+
+	/**
+	 * Iterates the entities in order. The iterator fails fast like that of a
+	 * {@link TreeSet}.
+	 */
+	@Override
+	public Iterator<Entity> iterator() {
+		Iterator<Entity> iterator = sorted.iterator();
+		return new Iterator<Entity>() {
+
+			private Entity lastReturned;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Entity next() {
+				lastReturned = iterator.next();
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				index.remove(lastReturned.getId());
+			}
+
+		};
+	}
+
+	/**
+	 * Return the first {@code count} entities in order, or all of them if there are
+	 * fewer.
+	 */
+	public List<Entity> first(int count) {
+		List<Entity> first = new ArrayList<>(Math.min(count, size()));
+		for (Iterator<Entity> iterator = sorted.iterator(); first.size() < count && iterator.hasNext(); ) {
+			first.add(iterator.next());
+		}
+		return Collections.unmodifiableList(first);
+	}
+
+	/**
+	 * Return a read-only view of the entities from {@code from} inclusive to {@code to}
+	 * exclusive. The bounds are compared by the comparator of this map only, so they can
+	 * be entities without an id that merely carry the sort key.
+	 */
+	public NavigableSet<Entity> range(Entity from, Entity to) {
+		return Collections.unmodifiableNavigableSet(sorted.subSet(withoutId(from), true, withoutId(to), false));
+	}
+
+	/**
+	 * Return {@code bound} if it has no id, which sorts it before every entity with the
+	 * same sort key; entities with an id cannot serve as bounds.
+	 */
+	private static <Entity extends BaseEntity> Entity withoutId(Entity bound) {
+		if (bound.getId() != null) {
+			throw new IllegalArgumentException("Range bound " + bound + " must not have an id");
+		}
+		return bound;
+	}
+
+}
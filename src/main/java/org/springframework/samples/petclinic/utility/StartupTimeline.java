@@ -0,0 +1,113 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When and on which thread each type was created by {@link SimpleDI#initialize}. Its
+ * {@link #toString} renders one line per type in order of creation, with the offset from
+ * the start of the initialization and the time the creation took.
+ */
+public final class StartupTimeline {
+
+	private final long startNanos = System.nanoTime();
+
+	private final Queue<Step> steps = new ConcurrentLinkedQueue<>();
+
+	private long totalNanos;
+
+	void record(Class<?> type, long stepStartNanos, long stepEndNanos) {
+		steps.add(new Step(type, Thread.currentThread().getName(), stepStartNanos - startNanos,
+			stepEndNanos - stepStartNanos));
+	}
+
+	StartupTimeline finish() {
+		totalNanos = System.nanoTime() - startNanos;
+		return this;
+	}
+
+	/**
+	 * Return the creation of each type, in order of their start.
+	 */
+	public List<Step> getSteps() {
+		List<Step> sorted = new ArrayList<>(steps);
+		sorted.sort(Comparator.comparingLong(Step::getStartNanos));
+		return sorted;
+	}
+
+	/**
+	 * Return the time the whole initialization took.
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Return the time creating the types one after another would have taken.
+	 */
+	public long getSequentialNanos() {
+		return steps.stream().mapToLong(Step::getDurationNanos).sum();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder(String.format("Initialized %d types in %.3f ms (%.3f ms sequentially)%n",
+			steps.size(), millis(totalNanos), millis(getSequentialNanos())));
+		for (Step step : getSteps()) {
+			report.append(String.format("%10.3f ms %+10.3f ms  %-30s %s%n", millis(step.startNanos),
+				millis(step.durationNanos), step.thread, step.type.getName()));
+		}
+		return report.toString();
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * The creation of one type.
+	 */
+	public static final class Step {
+
+		private final Class<?> type;
+
+		private final String thread;
+
+		private final long startNanos;
+
+		private final long durationNanos;
+
+		Step(Class<?> type, String thread, long startNanos, long durationNanos) {
+			this.type = type;
+			this.thread = thread;
+			this.startNanos = startNanos;
+			this.durationNanos = durationNanos;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public String getThread() {
+			return thread;
+		}
+
+		/**
+		 * Return the offset of the start of the creation from the start of the
+		 * initialization.
+		 */
+		public long getStartNanos() {
+			return startNanos;
+		}
+
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+	}
+
+}
@@ -0,0 +1,631 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps recently used values in memory for the configured expiry, loading missing ones
+ * with a {@link Loader}. Values are keyed by an {@code int}, usually the id of an entity
+ * or of the entity they belong to. When a maximum size is configured the cache also
+ * stays within that many values, letting a {@link TinyLfuPolicy} pick which ones to keep.
+ * <p>
+ * Concurrent misses on the same key share a single load. Written values replace the
+ * cached ones; every entry carries a version stamp so that a load which started before a
+ * write or an invalidation can never replace what was written.
+ * <p>
+ * With refresh-ahead enabled, a hit on a value that has used up the configured fraction
+ * of its time to live reloads it on a small background pool while the cached value is
+ * still returned, so popular values do not expire into a blocking miss.
+ * <p>
+ * Expired values are removed by a task registered with the shared {@link CacheScheduler},
+ * which also runs the refreshes; a lookup never returns a value past its expiry, even if
+ * the task has not removed it yet.
+ * <p>
+ * {@link #getAll} answers several keys at once and loads all of its misses with
+ * {@link Loader#loadAll}, at most {@value #BATCH_SIZE} keys per call.
+ * <p>
+ * Caches with a {@link RecordCodec} can also keep their values off the heap: each one is
+ * then written as a compact record into an {@link OffHeapStore} and read back into a new
+ * object on every hit, leaving only a small entry per value for the garbage collector.
+ * With a snapshot file configured, the cached values are written to a
+ * {@link CacheSnapshot} when the context closes and read back while the next instance
+ * starts.
+ * <p>
+ * Entries are kept in an {@link ExpiringIntMap}. With values on the heap a hit allocates
+ * nothing: the key is not boxed, the expiry is checked against the deadline stored next
+ * to the entry and hits and misses are only logged at trace level.
+ *
+ * @param <V> the type of the cached values
+ */
+public class TimedCache<V> implements DisposableBean {
+
+	private final static Logger log = LoggerFactory.getLogger(TimedCache.class);
+
+	private final String name;
+	private final Loader<V> loader;
+
+	private final ExpiringIntMap<Entry<V>> entries = new ExpiringIntMap<>();
+	private final Map<Integer, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+	private final AtomicLong versions = new AtomicLong();
+
+	private final long expiryInMillis;
+	private static final int TICKS_PER_ROTATION = 64;
+	private static final int OFF_HEAP_SLAB_SIZE = 8 << 20;
+	static final int BATCH_SIZE = 500;
+
+	private final CacheScheduler scheduler;
+	private TimingWheel<Integer> expiryWheel;
+	private CacheScheduler.Registration maintenance;
+
+	private final TinyLfuPolicy policy;
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	private final long refreshAfterMillis;
+
+	private final RecordCodec<V> codec;
+	private final OffHeapStore offHeap;
+	private final AtomicLong recordStamps = new AtomicLong();
+
+	private final CacheSnapshot snapshot;
+	private final long snapshotMaxAgeMillis;
+
+	public TimedCache(String name, Loader<V> loader, CacheScheduler scheduler, CacheSettings settings) {
+		this(name, loader, null, scheduler, settings);
+	}
+
+	/**
+	 * @param name the name of the cache, used in log messages and metrics
+	 * @param codec the codec to write values off the heap and into snapshots with, or
+	 * {@code null} if the cache keeps its values on the heap only
+	 * @throws IllegalArgumentException if the settings keep values off the heap or in a
+	 * snapshot, but there is no codec
+	 */
+	public TimedCache(String name, Loader<V> loader, RecordCodec<V> codec, CacheScheduler scheduler,
+					  CacheSettings settings) {
+		if (codec == null && (settings.getOffHeapMegabytes() > 0 || !settings.getSnapshotFile().isEmpty())) {
+			throw new IllegalArgumentException("Cache " + name + " has no record codec to keep its values "
+				+ "off the heap or in a snapshot");
+		}
+		this.name = name;
+		this.loader = loader;
+		this.codec = codec;
+		this.scheduler = scheduler;
+		this.expiryInMillis = settings.getExpiryMillis();
+		this.policy = settings.getMaximumSize() > 0
+			? new TinyLfuPolicy(settings.getMaximumSize(), settings.getSketchWidth()) : null;
+		double refreshAhead = settings.getRefreshAhead();
+		this.refreshAfterMillis = refreshAhead > 0 && refreshAhead < 1 ? (long) (expiryInMillis * refreshAhead)
+			: Long.MAX_VALUE;
+		this.offHeap = settings.getOffHeapMegabytes() > 0
+			? new OffHeapStore(settings.getOffHeapMegabytes() << 20, OFF_HEAP_SLAB_SIZE) : null;
+		this.snapshot = settings.getSnapshotFile().isEmpty() ? null
+			: new CacheSnapshot(Paths.get(settings.getSnapshotFile()));
+		this.snapshotMaxAgeMillis = settings.getSnapshotMaxAgeMillis();
+		initialize();
+	}
+
+	void initialize() {
+		expiryWheel = new TimingWheel<>(expiryInMillis, TICKS_PER_ROTATION);
+		maintenance = scheduler.register(this::cleanMap, expiryWheel.getTickMillis());
+		if (snapshot != null) {
+			restoreSnapshot();
+		}
+	}
+
+	/**
+	 * Stop the maintenance of this cache when the context closes, and write the snapshot
+	 * if one is configured.
+	 */
+	@Override
+	public void destroy() {
+		maintenance.cancel();
+		if (snapshot != null) {
+			writeSnapshot();
+		}
+	}
+
+	/**
+	 * Install the values of a valid snapshot until the deadlines they had when it was
+	 * written. Off-heap records are copied as they are, without decoding them.
+	 * @return the number of values restored
+	 */
+	int restoreSnapshot() {
+		long started = System.currentTimeMillis();
+		long version = versions.get();
+		int[] restored = new int[1];
+		try {
+			snapshot.read(started, snapshotMaxAgeMillis, (key, record, deadline) -> {
+				long now = System.currentTimeMillis();
+				long refreshAt = refreshAfterMillis != Long.MAX_VALUE ? now + refreshAfterMillis : Long.MAX_VALUE;
+				Entry<V> entry = offHeap != null ? newOffHeapEntry(key, record, version, refreshAt)
+					: new Entry<>(decode(record), OffHeapStore.NO_ADDRESS, 0, version, refreshAt);
+				if (entry != null && install(key, entry, Math.min(deadline, now + expiryInMillis), null)) {
+					restored[0]++;
+				}
+			});
+		} catch (RuntimeException ex) {
+			// the checksum matched, so the codec changed; keep what could be read
+			log.warn("Restoring " + name + " from " + snapshot.getFile() + " failed", ex);
+		}
+		log.info("Restored {} {} from {} in {} ms", restored[0], name, snapshot.getFile(),
+			System.currentTimeMillis() - started);
+		return restored[0];
+	}
+
+	/**
+	 * Write the cached values that did not expire yet to the snapshot file.
+	 * @return the number of values written
+	 */
+	int writeSnapshot() {
+		long now = System.currentTimeMillis();
+		List<Entry<V>> cached = new ArrayList<>(entries.size());
+		List<Integer> keys = new ArrayList<>(entries.size());
+		List<Long> deadlines = new ArrayList<>(entries.size());
+		entries.forEach(now, (key, entry, deadline) -> {
+			keys.add(key);
+			cached.add(entry);
+			deadlines.add(deadline);
+		});
+		Map<Integer, CacheSnapshot.Record> records = new LinkedHashMap<>();
+		for (int i = 0; i < cached.size(); i++) {
+			Entry<V> entry = cached.get(i);
+			byte[] record = entry.value != null ? encode(entry.value) : offHeap.read(entry.address, entry.stamp);
+			if (record != null) {
+				records.put(keys.get(i), new CacheSnapshot.Record(record, deadlines.get(i)));
+			}
+		}
+		try {
+			snapshot.write(records, now);
+			log.info("Wrote {} {} to {}", records.size(), name, snapshot.getFile());
+			return records.size();
+		} catch (IOException | UncheckedIOException ex) {
+			log.warn("Writing the " + name + " snapshot to " + snapshot.getFile() + " failed", ex);
+			return 0;
+		}
+	}
+
+	/**
+	 * Install {@code value} unless the cache already holds a newer version of it, or a
+	 * write dropped the registration of the load that produced it.
+	 * @return whether the value was installed
+	 */
+	private boolean put(int key, V value, long version, CompletableFuture<V> loader) {
+		long now = System.currentTimeMillis();
+		long deadline = now + expiryInMillis;
+		long refreshAt = refreshAfterMillis != Long.MAX_VALUE ? now + refreshAfterMillis : Long.MAX_VALUE;
+		Entry<V> entry = newEntry(key, value, version, refreshAt);
+		return entry != null && install(key, entry, deadline, loader);
+	}
+
+	private boolean install(int key, Entry<V> entry, long deadline, CompletableFuture<V> loader) {
+		Object[] replaced = new Object[1];
+		boolean installed = entries.putIf(key, entry, deadline, current -> {
+			if (loader != null && loading.get(key) != loader) {
+				return false;
+			}
+			replaced[0] = current;
+			return current == null || current.version <= entry.version;
+		});
+		if (!installed) {
+			release(entry);
+			return false;
+		}
+		release((Entry<?>) replaced[0]);
+		expiryWheel.schedule(key, deadline);
+		if (log.isDebugEnabled()) {
+			log.debug("Inserting {} {} until {}", name, key, deadline);
+		}
+		if (policy != null) {
+			int evicted = policy.recordInsert(key);
+			if (evicted != TinyLfuPolicy.NONE) {
+				release(entries.remove(evicted));
+				statistics.recordEviction();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create the entry for a value, writing it off the heap if configured.
+	 * @return the entry, or {@code null} if the off-heap store is full
+	 */
+	private Entry<V> newEntry(int key, V value, long version, long refreshAt) {
+		if (offHeap == null) {
+			return new Entry<>(value, OffHeapStore.NO_ADDRESS, 0, version, refreshAt);
+		}
+		return newOffHeapEntry(key, encode(value), version, refreshAt);
+	}
+
+	private Entry<V> newOffHeapEntry(int key, byte[] record, long version, long refreshAt) {
+		long stamp = recordStamps.incrementAndGet();
+		long address = offHeap.write(record, stamp);
+		if (address == OffHeapStore.NO_ADDRESS) {
+			log.warn("Off-heap store of " + name + " is full, not caching " + key);
+			return null;
+		}
+		return new Entry<>(null, address, stamp, version, refreshAt);
+	}
+
+	/**
+	 * Return the value of an entry, or {@code null} if its off-heap record was removed
+	 * while reading it.
+	 */
+	private V valueOf(Entry<V> entry) {
+		if (entry.value != null) {
+			return entry.value;
+		}
+		byte[] record = offHeap.read(entry.address, entry.stamp);
+		return record != null ? decode(record) : null;
+	}
+
+	/**
+	 * Return the cached value, or {@code null} if it is missing or expired.
+	 */
+	private V cachedValue(int key) {
+		Entry<V> entry = entries.get(key, System.currentTimeMillis());
+		return entry != null ? valueOf(entry) : null;
+	}
+
+	private void release(Entry<?> entry) {
+		if (entry != null && entry.address != OffHeapStore.NO_ADDRESS) {
+			offHeap.free(entry.address);
+		}
+	}
+
+	private byte[] encode(V value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			codec.write(value, out);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	private V decode(byte[] record) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+			return codec.read(in);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Return the value of {@code key}, loading it if it is not cached.
+	 * @return the value, or {@code null} if the loader found none
+	 */
+	public V get(int key) {
+		long now = System.currentTimeMillis();
+		Entry<V> cached = entries.get(key, now);
+		V value = cached != null ? valueOf(cached) : null;
+		if(value != null) {
+			log.trace("cache hit");
+			statistics.recordHit();
+			if (policy != null) {
+				policy.recordAccess(key);
+			}
+			if (now >= cached.refreshAt) {
+				refresh(key, value);
+			}
+			return value;
+		} else {
+			log.trace("cache miss");
+			statistics.recordMiss();
+			return load(key);
+		}
+	}
+
+	/**
+	 * Load the value unless another thread is already doing so, in which case its result
+	 * is awaited and shared.
+	 */
+	private V load(int key) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+		if (inFlight != null) {
+			return await(inFlight);
+		}
+		try {
+			// the previous loader may have finished between our miss and registering
+			V value = cachedValue(key);
+			if (value == null) {
+				long version = versions.get();
+				value = loader.load(key);
+				if (value != null) {
+					put(key, value, version, future);
+				}
+			}
+			future.complete(value);
+			return value;
+		} catch (RuntimeException ex) {
+			future.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+
+	/**
+	 * Look up several values at once. Cached values are returned from memory, the others
+	 * are loaded together, at most {@value #BATCH_SIZE} per call of the loader. Misses that
+	 * another thread is already loading are awaited instead of being loaded again.
+	 * @return the values found, in the iteration order of {@code keys}
+	 */
+	public Map<Integer, V> getAll(Collection<Integer> keys) {
+		Map<Integer, V> found = new LinkedHashMap<>();
+		Map<Integer, CompletableFuture<V>> awaited = new LinkedHashMap<>();
+		Map<Integer, CompletableFuture<V>> futures = new LinkedHashMap<>();
+		for (Integer key : keys) {
+			if (found.containsKey(key) || awaited.containsKey(key)) {
+				continue;
+			}
+			V value = cachedValue(key);
+			if (value != null) {
+				statistics.recordHit();
+				if (policy != null) {
+					policy.recordAccess(key);
+				}
+				found.put(key, value);
+				continue;
+			}
+			statistics.recordMiss();
+			CompletableFuture<V> future = new CompletableFuture<>();
+			CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+			awaited.put(key, inFlight != null ? inFlight : future);
+			if (inFlight == null) {
+				futures.put(key, future);
+			}
+		}
+		try {
+			loadAll(futures);
+		} finally {
+			futures.forEach(loading::remove);
+		}
+		Map<Integer, V> result = new LinkedHashMap<>();
+		for (Integer key : keys) {
+			CompletableFuture<V> pending = awaited.get(key);
+			V value = pending != null ? await(pending) : found.get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Load the values of the registered {@code futures} in batches and complete every
+	 * future, with {@code null} for keys the loader found nothing for.
+	 */
+	private void loadAll(Map<Integer, CompletableFuture<V>> futures) {
+		List<Integer> batch = new ArrayList<>(Math.min(futures.size(), BATCH_SIZE));
+		try {
+			for (Integer key : futures.keySet()) {
+				// the previous loader may have finished between our miss and registering
+				V value = cachedValue(key);
+				if (value != null) {
+					futures.get(key).complete(value);
+					continue;
+				}
+				batch.add(key);
+				if (batch.size() == BATCH_SIZE) {
+					loadBatch(batch, futures);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				loadBatch(batch, futures);
+			}
+		} catch (RuntimeException ex) {
+			futures.values().forEach(future -> future.completeExceptionally(ex));
+			throw ex;
+		}
+	}
+
+	private void loadBatch(List<Integer> batch, Map<Integer, CompletableFuture<V>> futures) {
+		long version = versions.get();
+		for (Map.Entry<Integer, V> loaded : loader.loadAll(batch).entrySet()) {
+			CompletableFuture<V> future = futures.get(loaded.getKey());
+			if (future != null && loaded.getValue() != null) {
+				put(loaded.getKey(), loaded.getValue(), version, future);
+				future.complete(loaded.getValue());
+			}
+		}
+		for (Integer key : batch) {
+			futures.get(key).complete(null);
+		}
+	}
+
+	/**
+	 * Reload the value on the refresh pool unless a load of it is already running.
+	 * Lookups that miss meanwhile wait for the refresh like for any other load.
+	 */
+	private void refresh(int key, V current) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		if (loading.putIfAbsent(key, future) != null) {
+			return;
+		}
+		try {
+			scheduler.execute(() -> {
+				try {
+					long version = versions.get();
+					V value = loader.load(key);
+					if (value != null) {
+						put(key, value, version, future);
+					} else {
+						removeRefreshed(key, version, future);
+					}
+					statistics.recordRefresh();
+					future.complete(value);
+				} catch (RuntimeException ex) {
+					statistics.recordRefreshFailure();
+					log.warn("Refreshing " + name + " " + key + " failed", ex);
+					future.completeExceptionally(ex);
+				} finally {
+					loading.remove(key, future);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// the pool is saturated or stopped, the value gets another chance on its next hit
+			loading.remove(key, future);
+			future.complete(current);
+		}
+	}
+
+	private static <V> V await(CompletableFuture<V> inFlight) {
+		try {
+			return inFlight.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Cache {@code value} as the current value of {@code key}, after it was written to
+	 * the data store. Loads of the same key that are still running will not install
+	 * their result.
+	 */
+	public void put(int key, V value) {
+		long version = versions.incrementAndGet();
+		loading.remove(key);
+		statistics.recordPut();
+		put(key, value, version, null);
+	}
+
+	/**
+	 * Drop the cached value, and stop running loads of it from installing their result.
+	 */
+	public void invalidate(int key) {
+		versions.incrementAndGet();
+		loading.remove(key);
+		remove(key);
+	}
+
+	/**
+	 * Remove the value a refresh found gone from the data store, under the same conditions
+	 * as {@link #install}: the refresh must still be registered, and the cached value must
+	 * not be newer than the refresh, so that a value written meanwhile stays.
+	 */
+	private void removeRefreshed(int key, long version, CompletableFuture<V> refresh) {
+		removed(key, entries.removeIf(key, current -> loading.get(key) == refresh && current.version <= version));
+	}
+
+	private void remove(int key) {
+		removed(key, entries.remove(key));
+	}
+
+	private void removed(int key, Entry<V> removed) {
+		if (removed != null) {
+			if (policy != null) {
+				policy.recordRemoval(key);
+			}
+			release(removed);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Return the number of cached values, including expired ones that were not removed
+	 * yet.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public CacheStatistics getStatistics() {
+		return statistics;
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final long address;
+
+		private final long stamp;
+
+		private final long version;
+
+		private final long refreshAt;
+
+		Entry(V value, long address, long stamp, long version, long refreshAt) {
+			this.value = value;
+			this.address = address;
+			this.stamp = stamp;
+			this.version = version;
+			this.refreshAt = refreshAt;
+		}
+
+	}
+
+	private void cleanMap() {
+		expiryWheel.advance(System.currentTimeMillis(), this::expire);
+	}
+
+	private void expire(Integer key, long deadline) {
+		// a later put re-schedules the key, so only the latest deadline may remove it
+		Entry<V> entry = entries.expire(key, deadline);
+		if (entry != null) {
+			if (policy != null) {
+				policy.recordRemoval(key);
+			}
+			release(entry);
+			log.debug("Removing {} {}", name, key);
+		}
+	}
+
+	/**
+	 * Loads the values of a {@link TimedCache} from the data store.
+	 *
+	 * @param <V> the type of the values
+	 */
+	@FunctionalInterface
+	public interface Loader<V> {
+
+		/**
+		 * Return the value of {@code key}, or {@code null} if there is none.
+		 */
+		V load(int key);
+
+		/**
+		 * Return the values of {@code keys} that exist. Loaders that can query several keys
+		 * at once should override this; by default each key is loaded on its own.
+		 */
+		default Map<Integer, V> loadAll(List<Integer> keys) {
+			Map<Integer, V> values = new LinkedHashMap<>();
+			for (Integer key : keys) {
+				V value = load(key);
+				if (value != null) {
+					values.put(key, value);
+				}
+			}
+			return values;
+		}
+
+	}
+
+}
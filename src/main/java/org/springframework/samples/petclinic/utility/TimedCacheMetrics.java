@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.utility;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes the {@link CacheStatistics} of every {@link TimedCache} as the standard
+ * {@code cache.*} meters, tagged with the name of the cache, next to those of the
+ * Spring caches.
+ */
+@Component
+public class TimedCacheMetrics implements MeterBinder {
+
+	private final List<TimedCache<?>> caches;
+
+	public TimedCacheMetrics(List<TimedCache<?>> caches) {
+		this.caches = caches;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (TimedCache<?> cache : caches) {
+			new Binder(cache).bindTo(registry);
+		}
+	}
+
+	private static final class Binder extends CacheMeterBinder {
+
+		private final CacheStatistics statistics;
+
+		private final TimedCache<?> cache;
+
+		Binder(TimedCache<?> cache) {
+			super(cache, cache.getName(), Tags.empty());
+			this.cache = cache;
+			this.statistics = cache.getStatistics();
+		}
+
+		@Override
+		protected Long size() {
+			return (long) cache.size();
+		}
+
+		@Override
+		protected long hitCount() {
+			return statistics.getHitCount();
+		}
+
+		@Override
+		protected Long missCount() {
+			return statistics.getMissCount();
+		}
+
+		@Override
+		protected Long evictionCount() {
+			return statistics.getEvictionCount();
+		}
+
+		@Override
+		protected long putCount() {
+			return statistics.getPutCount();
+		}
+
+		@Override
+		protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+			FunctionCounter.builder("cache.refreshes", statistics, CacheStatistics::getRefreshCount)
+				.tags(getTagsWithCacheName()).tag("result", "success")
+				.description("The number of entries reloaded ahead of their expiry")
+				.register(registry);
+			FunctionCounter.builder("cache.refreshes", statistics, CacheStatistics::getRefreshFailureCount)
+				.tags(getTagsWithCacheName()).tag("result", "failure")
+				.description("The number of entries reloaded ahead of their expiry")
+				.register(registry);
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A hashed timing wheel that keeps scheduled deadlines in buckets of {@code tickMillis}
+ * each. Advancing the wheel only visits the buckets whose tick has passed, so the cost of
+ * an expiration is O(1) regardless of how many deadlines are pending.
+ * <p>
+ * A deadline goes into the bucket of the first tick at or after it, so every deadline in
+ * a bucket has passed once its tick has, and a key is handed back at most one tick after
+ * its deadline. Deadlines further away than one rotation stay in their bucket until a
+ * later rotation reaches them; callers that size the wheel to cover their time to live
+ * never pay for those extra visits.
+ *
+ * @param <K> the type of the scheduled keys
+ */
+public class TimingWheel<K> {
+
+	private final long tickMillis;
+
+	private final Queue<Timeout<K>>[] buckets;
+
+	private final int mask;
+
+	private volatile long processedTick;
+
+	/**
+	 * Create a wheel whose rotation spans at least {@code spanMillis}.
+	 * @param spanMillis the longest delay expected to be scheduled
+	 * @param ticksPerRotation the number of buckets, rounded up to a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long spanMillis, int ticksPerRotation) {
+		int size = Integer.highestOneBit(Math.max(ticksPerRotation, 2) - 1) << 1;
+		this.tickMillis = Math.max(1, (spanMillis + size - 1) / size);
+		this.buckets = new Queue[size];
+		for (int i = 0; i < size; i++) {
+			this.buckets[i] = new ConcurrentLinkedQueue<>();
+		}
+		this.mask = size - 1;
+		this.processedTick = System.currentTimeMillis() / this.tickMillis;
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	/**
+	 * Schedule {@code key} to be handed back once {@code deadline} has passed.
+	 * @param key the key to expire
+	 * @param deadline the expiry time in epoch milliseconds
+	 */
+	public void schedule(K key, long deadline) {
+		Timeout<K> timeout = new Timeout<>(key, deadline);
+		long tick = Math.max((deadline + tickMillis - 1) / tickMillis, processedTick + 1);
+		Queue<Timeout<K>> bucket = buckets[(int) (tick & mask)];
+		bucket.add(timeout);
+		// advance() publishes a tick before draining its bucket, so if it reached this tick
+		// in the meantime it may have drained the bucket before the add; move the timeout
+		// to a later tick unless advance() took it
+		while (processedTick >= tick && bucket.remove(timeout)) {
+			tick = processedTick + 1;
+			bucket = buckets[(int) (tick & mask)];
+			bucket.add(timeout);
+		}
+	}
+
+	/**
+	 * Process every bucket up to {@code now}, handing each due key and its deadline to
+	 * {@code expirer}. Deadlines that belong to a later rotation are kept.
+	 * @param now the current time in epoch milliseconds
+	 * @param expirer receives the keys whose deadline has passed
+	 * @return the number of keys handed to {@code expirer}
+	 */
+	public synchronized int advance(long now, ObjLongConsumer<K> expirer) {
+		long nowTick = now / tickMillis;
+		long from = Math.max(processedTick + 1, nowTick - mask);
+		int expired = 0;
+		List<Timeout<K>> pending = null;
+		for (long tick = from; tick <= nowTick; tick++) {
+			processedTick = tick;
+			Queue<Timeout<K>> bucket = buckets[(int) (tick & mask)];
+			Timeout<K> timeout;
+			while ((timeout = bucket.poll()) != null) {
+				if (timeout.deadline <= now) {
+					expirer.accept(timeout.key, timeout.deadline);
+					expired++;
+				}
+				else {
+					if (pending == null) {
+						pending = new ArrayList<>();
+					}
+					pending.add(timeout);
+				}
+			}
+			if (pending != null) {
+				bucket.addAll(pending);
+				pending.clear();
+			}
+		}
+		processedTick = Math.max(processedTick, nowTick);
+		return expired;
+	}
+
+	private static final class Timeout<K> {
+
+		private final K key;
+
+		private final long deadline;
+
+		Timeout(K key, long deadline) {
+			this.key = key;
+			this.deadline = deadline;
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+package org.springframework.samples.petclinic.utility;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which key a size-bounded cache gives up once it is full. Keys live in a
+ * segmented LRU: new keys enter the probation segment and move to the protected segment
+ * (80% of the capacity) when they are read again. When the cache overflows, the newcomer
+ * has to beat the least recently used probation key in a {@link FrequencySketch}
+ * comparison to be admitted, so a burst of keys that are only seen once cannot push the
+ * popular ones out.
+ * <p>
+ * Reads are recorded on a best-effort basis: when another thread holds the lock the
+ * access is dropped rather than making the reader wait. Keys are {@code int} ids, indexed
+ * by an {@link ExpiringIntMap}, so recording a read does not allocate.
+ */
+public class TinyLfuPolicy {
+
+	/**
+	 * Returned by {@link #recordInsert} when no key has to be dropped.
+	 */
+	public static final int NONE = Integer.MIN_VALUE;
+
+	private final long maximumSize;
+
+	private final long maximumProtected;
+
+	private final FrequencySketch sketch;
+
+	private final ExpiringIntMap<Node> nodes = new ExpiringIntMap<>();
+
+	private final Node probation = new Node(NONE);
+
+	private final Node protectedSegment = new Node(NONE);
+
+	private long protectedSize;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * @param maximumSize the number of keys the cache may hold
+	 * @param sketchWidth the width of the frequency sketch, {@code 0} to derive it from
+	 * {@code maximumSize}
+	 */
+	public TinyLfuPolicy(long maximumSize, int sketchWidth) {
+		this.maximumSize = maximumSize;
+		this.maximumProtected = (long) (maximumSize * 0.8);
+		this.sketch = new FrequencySketch(maximumSize, sketchWidth);
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public int getSketchWidth() {
+		return sketch.width();
+	}
+
+	/**
+	 * Record a read of a cached key, promoting it towards the protected segment.
+	 */
+	public void recordAccess(int key) {
+		if (!lock.tryLock()) {
+			return;
+		}
+		try {
+			sketch.increment(key);
+			Node node = nodes.get(key);
+			if (node != null) {
+				promote(node);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Record that {@code key} was added to the cache.
+	 * @return the key the cache has to drop to stay within its bound, possibly
+	 * {@code key} itself, or {@link #NONE} if nothing needs to go
+	 */
+	public int recordInsert(int key) {
+		lock.lock();
+		try {
+			sketch.increment(key);
+			Node node = nodes.get(key);
+			if (node != null) {
+				promote(node);
+				return NONE;
+			}
+			Node candidate = new Node(key);
+			nodes.put(key, candidate, ExpiringIntMap.NEVER);
+			candidate.linkAfter(probation);
+			if (nodes.size() <= maximumSize) {
+				return NONE;
+			}
+			Node victim = probation.prev != candidate ? probation.prev : protectedSegment.prev;
+			if (victim == protectedSegment) {
+				victim = candidate;
+			}
+			Node evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+			remove(evicted);
+			return evicted.key;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Record that {@code key} left the cache for another reason, such as expiry.
+	 */
+	public void recordRemoval(int key) {
+		lock.lock();
+		try {
+			Node node = nodes.get(key);
+			if (node != null) {
+				remove(node);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void promote(Node node) {
+		node.unlink();
+		node.linkAfter(protectedSegment);
+		if (!node.isProtected) {
+			node.isProtected = true;
+			protectedSize++;
+			if (protectedSize > maximumProtected) {
+				Node demoted = protectedSegment.prev;
+				demoted.unlink();
+				demoted.isProtected = false;
+				demoted.linkAfter(probation);
+				protectedSize--;
+			}
+		}
+	}
+
+	private void remove(Node node) {
+		nodes.remove(node.key);
+		node.unlink();
+		if (node.isProtected) {
+			protectedSize--;
+		}
+	}
+
+	/**
+	 * An entry of one of the two circular lists; the list heads are sentinels whose
+	 * {@code next} is the most and {@code prev} the least recently used key.
+	 */
+	private static final class Node {
+
+		private final int key;
+
+		private Node prev = this;
+
+		private Node next = this;
+
+		private boolean isProtected;
+
+		Node(int key) {
+			this.key = key;
+		}
+
+		void linkAfter(Node head) {
+			this.prev = head;
+			this.next = head.next;
+			head.next.prev = this;
+			head.next = this;
+		}
+
+		void unlink() {
+			prev.next = next;
+			next.prev = prev;
+			prev = this;
+			next = this;
+		}
+
+	}
+
+}
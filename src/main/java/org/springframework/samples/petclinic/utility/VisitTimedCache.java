@@ -0,0 +1,38 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the visits of recently shown pets in memory, keyed by the id of the pet and
+ * configured by the {@code petclinic.cache.visits.*} properties. A pet without visits
+ * is cached with an empty list. The lists cannot be modified; the visits of a pet have
+ * to be invalidated when a visit is added to it.
+ *
+ * @see TimedCache
+ */
+@Component
+public class VisitTimedCache extends TimedCache<List<Visit>> {
+
+	private static final String NAME = "visits";
+
+	public VisitTimedCache(VisitRepository repository, CacheScheduler scheduler) {
+		this(repository, scheduler, new CacheSettings());
+	}
+
+	@Autowired
+	public VisitTimedCache(VisitRepository repository, CacheScheduler scheduler, Environment environment) {
+		this(repository, scheduler, CacheSettings.of(environment, NAME));
+	}
+
+	public VisitTimedCache(VisitRepository repository, CacheScheduler scheduler, CacheSettings settings) {
+		super(NAME, petId -> Collections.unmodifiableList(repository.findByPetId(petId)), scheduler, settings);
+	}
+
+}
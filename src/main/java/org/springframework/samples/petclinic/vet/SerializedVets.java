@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+/**
+ * The list of all vets, serialized once in every format a message converter can write
+ * it in. Each serialized list is kept as a byte array with a strong ETag derived from its
+ * content, so {@code /vets} answers without serializing anything and conditional
+ * requests get a {@code 304 Not Modified}.
+ * <p>
+ * The serialized lists are rebuilt when the {@link VetsGeneration} moved on since they
+ * were built, that is after a vet or a changed specialty was saved. A {@code vets} cache
+ * that keeps the vets off the heap or on disk therefore does not serialize them again on
+ * every request.
+ */
+@Component
+class SerializedVets {
+
+	private final VetRepository vets;
+
+	private final VetsGeneration generation;
+
+	private final List<HttpMessageConverter<Object>> converters = new ArrayList<>();
+
+	private volatile Snapshot snapshot;
+
+	@SuppressWarnings("unchecked")
+	SerializedVets(VetRepository vets, VetsGeneration generation, HttpMessageConverters converters) {
+		this.vets = vets;
+		this.generation = generation;
+		for (HttpMessageConverter<?> converter : converters.getConverters()) {
+			if (converter.canWrite(Vets.class, null)) {
+				this.converters.add((HttpMessageConverter<Object>) converter);
+			}
+		}
+	}
+
+	/**
+	 * Return the vets in the first format of {@code acceptedTypes}, which are sorted by
+	 * specificity and quality, that a converter can write. A body whose content type is
+	 * refused with {@code q=0} by a range at least as specific as the one accepting it is
+	 * skipped.
+	 * @throws HttpMediaTypeNotAcceptableException if no converter writes any of them
+	 */
+	Body select(List<MediaType> acceptedTypes) throws HttpMediaTypeNotAcceptableException {
+		List<Body> bodies = current().bodies;
+		for (MediaType accepted : acceptedTypes) {
+			if (accepted.getQualityValue() == 0) {
+				continue;
+			}
+			for (Body body : bodies) {
+				for (MediaType supported : body.supportedTypes) {
+					if (accepted.isCompatibleWith(supported) && !isRefused(body.contentType, accepted, acceptedTypes)) {
+						return body;
+					}
+				}
+			}
+		}
+		List<MediaType> supported = new ArrayList<>();
+		bodies.forEach(body -> supported.addAll(body.supportedTypes));
+		throw new HttpMediaTypeNotAcceptableException(supported);
+	}
+
+	private static boolean isRefused(MediaType contentType, MediaType accepted, List<MediaType> acceptedTypes) {
+		for (MediaType refused : acceptedTypes) {
+			if (refused.getQualityValue() == 0 && refused.includes(contentType) && accepted.includes(refused)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Snapshot current() {
+		long generation = this.generation.get();
+		Snapshot current = snapshot;
+		if (current == null || current.generation != generation) {
+			current = new Snapshot(generation, serialize(this.vets.findAll()));
+			snapshot = current;
+		}
+		return current;
+	}
+
+	private List<Body> serialize(Collection<Vet> all) {
+		Vets vets = new Vets();
+		vets.getVetList().addAll(all);
+		List<Body> bodies = new ArrayList<>(converters.size());
+		for (HttpMessageConverter<Object> converter : converters) {
+			List<MediaType> supportedTypes = converter.getSupportedMediaTypes();
+			ByteArrayOutputMessage message = new ByteArrayOutputMessage();
+			try {
+				converter.write(vets, supportedTypes.get(0), message);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			bodies.add(new Body(message.getHeaders().getContentType(), supportedTypes, message.body.toByteArray()));
+		}
+		return Collections.unmodifiableList(bodies);
+	}
+
+	private static final class Snapshot {
+
+		private final long generation;
+
+		private final List<Body> bodies;
+
+		Snapshot(long generation, List<Body> bodies) {
+			this.generation = generation;
+			this.bodies = bodies;
+		}
+
+	}
+
+	/**
+	 * The vets serialized in one format.
+	 */
+	static final class Body {
+
+		private final MediaType contentType;
+
+		private final List<MediaType> supportedTypes;
+
+		private final byte[] bytes;
+
+		private final String etag;
+
+		Body(MediaType contentType, List<MediaType> supportedTypes, byte[] bytes) {
+			this.contentType = contentType;
+			this.supportedTypes = supportedTypes;
+			this.bytes = bytes;
+			this.etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+		}
+
+		MediaType getContentType() {
+			return contentType;
+		}
+
+		/**
+		 * Return the serialized vets. The array is shared and must not be modified.
+		 */
+		byte[] getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Return the strong entity tag of the serialized vets, quoted.
+		 */
+		String getEtag() {
+			return etag;
+		}
+
+	}
+
+	private static final class ByteArrayOutputMessage implements HttpOutputMessage {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		@Override
+		public OutputStream getBody() {
+			return body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * An index from specialty name to the vets that have the specialty, for finding vets by
+ * specialty without scanning them all. Each vet has an ordinal, its position in
+ * {@link VetRepository#findAll}, and each specialty a {@link BitSet} of the ordinals of
+ * its vets, so a query for any or all of several specialties is an or or an and of their
+ * bit sets.
+ * <p>
+ * The index follows the {@link VetsGeneration}, so a {@code vets} cache that returns a
+ * new collection on every hit does not update it on every query. When a save advanced
+ * the generation, the vets at each ordinal are compared with the indexed ones, and only
+ * the bit sets of the specialties a vet gained or lost are copied and updated. If vets were
+ * removed or reordered the index is built again. The index is replaced as a whole, so
+ * queries never see a partly updated one.
+ */
+@Component
+class SpecialtyIndex {
+
+	private final VetRepository vets;
+
+	private final VetsGeneration generation;
+
+	private volatile Snapshot snapshot;
+
+	SpecialtyIndex(VetRepository vets, VetsGeneration generation) {
+		this.vets = vets;
+		this.generation = generation;
+	}
+
+	/**
+	 * Return the vets with at least one of the specialties named {@code names}, in the
+	 * order of {@link VetRepository#findAll}.
+	 */
+	List<Vet> findWithAnySpecialty(Collection<String> names) {
+		Snapshot current = current();
+		BitSet found = new BitSet();
+		for (String name : names) {
+			BitSet vets = current.bySpecialty.get(name);
+			if (vets != null) {
+				found.or(vets);
+			}
+		}
+		return current.vetsIn(found);
+	}
+
+	/**
+	 * Return the vets with every one of the specialties named {@code names}, in the order
+	 * of {@link VetRepository#findAll}. No names match every vet.
+	 */
+	List<Vet> findWithAllSpecialties(Collection<String> names) {
+		Snapshot current = current();
+		BitSet found = new BitSet();
+		found.set(0, current.vets.length);
+		for (String name : names) {
+			BitSet vets = current.bySpecialty.get(name);
+			if (vets == null) {
+				return Collections.emptyList();
+			}
+			found.and(vets);
+		}
+		return current.vetsIn(found);
+	}
+
+	private Snapshot current() {
+		long generation = this.generation.get();
+		Snapshot current = snapshot;
+		if (current == null) {
+			current = Snapshot.build(generation, this.vets.findAll());
+			snapshot = current;
+		}
+		else if (current.generation != generation) {
+			current = current.update(generation, this.vets.findAll());
+			snapshot = current;
+		}
+		return current;
+	}
+
+	private static Set<String> specialtyNames(Vet vet) {
+		return vet.getSpecialtiesInternal().stream().map(Specialty::getName).collect(Collectors.toSet());
+	}
+
+	private static final class Snapshot {
+
+		private final long generation;
+
+		private final Vet[] vets;
+
+		private final Map<String, BitSet> bySpecialty;
+
+		private Snapshot(long generation, Vet[] vets, Map<String, BitSet> bySpecialty) {
+			this.generation = generation;
+			this.vets = vets;
+			this.bySpecialty = bySpecialty;
+		}
+
+		static Snapshot build(long generation, Collection<Vet> all) {
+			Vet[] vets = all.toArray(new Vet[0]);
+			Map<String, BitSet> bySpecialty = new HashMap<>();
+			for (int ordinal = 0; ordinal < vets.length; ordinal++) {
+				for (Specialty specialty : vets[ordinal].getSpecialtiesInternal()) {
+					bySpecialty.computeIfAbsent(specialty.getName(), name -> new BitSet()).set(ordinal);
+				}
+			}
+			return new Snapshot(generation, vets, bySpecialty);
+		}
+
+		/**
+		 * Return the index of {@code all}, reusing the bit sets of this one for the
+		 * specialties whose vets did not change.
+		 */
+		Snapshot update(long generation, Collection<Vet> all) {
+			Vet[] updated = all.toArray(new Vet[0]);
+			if (updated.length < vets.length) {
+				return build(generation, all);
+			}
+			Map<String, BitSet> bySpecialty = new HashMap<>(this.bySpecialty);
+			Map<String, BitSet> copied = new HashMap<>();
+			for (int ordinal = 0; ordinal < updated.length; ordinal++) {
+				Vet vet = updated[ordinal];
+				Set<String> before;
+				if (ordinal >= vets.length) {
+					before = Collections.emptySet();
+				}
+				else if (vet == vets[ordinal]) {
+					continue;
+				}
+				else if (!vet.sameId(vets[ordinal])) {
+					return build(generation, all);
+				}
+				else {
+					before = specialtyNames(vets[ordinal]);
+				}
+				Set<String> after = specialtyNames(vet);
+				if (before.equals(after)) {
+					continue;
+				}
+				for (String name : before) {
+					if (!after.contains(name)) {
+						copyOnWrite(bySpecialty, copied, name).clear(ordinal);
+					}
+				}
+				for (String name : after) {
+					if (!before.contains(name)) {
+						copyOnWrite(bySpecialty, copied, name).set(ordinal);
+					}
+				}
+			}
+			bySpecialty.values().removeIf(BitSet::isEmpty);
+			return new Snapshot(generation, updated, bySpecialty);
+		}
+
+		/**
+		 * Return the bit set of {@code name} in {@code bySpecialty}, replaced by a copy the
+		 * first time, so that the bit sets of this snapshot are never changed.
+		 */
+		private static BitSet copyOnWrite(Map<String, BitSet> bySpecialty, Map<String, BitSet> copied, String name) {
+			return copied.computeIfAbsent(name, key -> {
+				BitSet original = bySpecialty.get(key);
+				BitSet copy = original != null ? (BitSet) original.clone() : new BitSet();
+				bySpecialty.put(key, copy);
+				return copy;
+			});
+		}
+
+		List<Vet> vetsIn(BitSet ordinals) {
+			List<Vet> found = new ArrayList<>(ordinals.cardinality());
+			for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+				found.add(vets[ordinal]);
+			}
+			return Collections.unmodifiableList(found);
+		}
+
+	}
+
+}
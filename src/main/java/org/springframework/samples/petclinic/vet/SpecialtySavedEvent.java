@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+/**
+ * Published by {@link VetService} when a specialty was inserted or updated.
+ */
+public class SpecialtySavedEvent {
+
+	private final Specialty specialty;
+
+	private final boolean created;
+
+	public SpecialtySavedEvent(Specialty specialty, boolean created) {
+		this.specialty = specialty;
+		this.created = created;
+	}
+
+	/**
+	 * Return the saved specialty, with its id.
+	 */
+	public Specialty getSpecialty() {
+		return specialty;
+	}
+
+	/**
+	 * Return whether the specialty was inserted, in which case no vet has it yet.
+	 */
+	public boolean isCreated() {
+		return created;
+	}
+
+}
@@ -15,8 +15,7 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,9 +28,8 @@ import javax.persistence.ManyToMany;
 import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlElement;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.samples.petclinic.model.Person;
+import org.springframework.samples.petclinic.model.SortedView;
 
 /**
  * Simple JavaBean domain object representing a veterinarian.
@@ -45,11 +43,16 @@ import org.springframework.samples.petclinic.model.Person;
 @Table(name = "vets")
 public class Vet extends Person {
 
+	private static final Comparator<Specialty> BY_NAME = Comparator.comparing(Specialty::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@ManyToMany(fetch = FetchType.EAGER)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
+	private transient volatile SortedView<Specialty> sortedSpecialties;
+
 	protected Set<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
 			this.specialties = new HashSet<>();
@@ -59,13 +62,18 @@ public class Vet extends Person {
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
+	/**
+	 * Return the specialties sorted by name, ignoring case. The list is unmodifiable and
+	 * returned again until the specialties change.
+	 */
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		SortedView<Specialty> view = SortedView.of(this.sortedSpecialties, getSpecialtiesInternal(), BY_NAME);
+		this.sortedSpecialties = view;
+		return view.getList();
 	}
 
 	public int getNrOfSpecialties() {
@@ -73,7 +81,9 @@ public class Vet extends Person {
 	}
 
 	public void addSpecialty(Specialty specialty) {
-		getSpecialtiesInternal().add(specialty);
+		if (getSpecialtiesInternal().add(specialty)) {
+			this.sortedSpecialties = null;
+		}
 	}
 
 }
@@ -15,10 +15,20 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,8 +42,14 @@ class VetController {
 
 	private final VetRepository vets;
 
-	public VetController(VetRepository clinicService) {
+	private final SerializedVets serializedVets;
+
+	private final SpecialtyIndex specialties;
+
+	public VetController(VetRepository clinicService, SerializedVets serializedVets, SpecialtyIndex specialties) {
 		this.vets = clinicService;
+		this.serializedVets = serializedVets;
+		this.specialties = specialties;
 	}
 
 	@GetMapping("/vets.html")
@@ -46,12 +62,46 @@ class VetController {
 		return "vets/vetList";
 	}
 
+	/**
+	 * Return the vets in the format the client accepts, serialized ahead of time. The
+	 * response carries a strong ETag and {@code Vary: Accept}, and a request whose
+	 * {@code If-None-Match} matches it is answered with {@code 304 Not Modified} and no
+	 * body.
+	 */
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
-		// Here we are returning an object of type 'Vets' rather than a collection of Vet
-		// objects so it is simpler for JSon/Object mapping
+	public ResponseEntity<byte[]> showResourcesVetList(
+			@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) String accept)
+			throws HttpMediaTypeNotAcceptableException {
+		List<MediaType> acceptedTypes;
+		try {
+			acceptedTypes = MediaType.parseMediaTypes(accept);
+		}
+		catch (InvalidMediaTypeException ex) {
+			throw new HttpMediaTypeNotAcceptableException(ex.getMessage());
+		}
+		MediaType.sortBySpecificityAndQuality(acceptedTypes);
+		SerializedVets.Body body = this.serializedVets.select(acceptedTypes);
+		return ResponseEntity.ok().contentType(body.getContentType()).eTag(body.getEtag())
+			.varyBy(HttpHeaders.ACCEPT).body(body.getBytes());
+	}
+
+	/**
+	 * Return the vets with any of the given specialties, or with all of them if
+	 * {@code match} is {@code all}.
+	 */
+	@GetMapping(value = "/vets", params = "specialty")
+	public @ResponseBody Vets showResourcesVetListBySpecialty(@RequestParam("specialty") List<String> names,
+			@RequestParam(defaultValue = "any") String match) {
 		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vets.findAll());
+		if ("any".equals(match)) {
+			vets.getVetList().addAll(this.specialties.findWithAnySpecialty(names));
+		}
+		else if ("all".equals(match)) {
+			vets.getVetList().addAll(this.specialties.findWithAllSpecialties(names));
+		}
+		else {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "match must be any or all");
+		}
 		return vets;
 	}
 
@@ -36,11 +36,20 @@ import org.springframework.transaction.annotation.Transactional;
 public interface VetRepository extends Repository<Vet, Integer> {
 
 	/**
-	 * Retrieve all <code>Vet</code>s from the data store.
+	 * Retrieve all <code>Vet</code>s from the data store. The vets are cached through
+	 * {@code Cache.get(key, loader)}, which does not keep a load that overlapped an update
+	 * of the cached vets.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
+	@Cacheable(cacheNames = "vets", sync = true)
 	Collection<Vet> findAll() throws DataAccessException;
 
+	/**
+	 * Save a <code>Vet</code> to the data store, either inserting or updating it. Use
+	 * {@link VetService#saveVet} to keep the cached vets up to date.
+	 * @param vet the <code>Vet</code> to save
+	 */
+	void save(Vet vet) throws DataAccessException;
+
 }
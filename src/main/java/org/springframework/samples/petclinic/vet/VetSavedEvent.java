@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+/**
+ * Published by {@link VetService} when a vet was inserted or updated.
+ */
+public class VetSavedEvent {
+
+	private final Vet vet;
+
+	public VetSavedEvent(Vet vet) {
+		this.vet = vet;
+	}
+
+	/**
+	 * Return the saved vet, with its id.
+	 */
+	public Vet getVet() {
+		return vet;
+	}
+
+}
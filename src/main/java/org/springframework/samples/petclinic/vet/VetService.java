@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Saves vets and specialties and publishes a {@link VetSavedEvent} or
+ * {@link SpecialtySavedEvent} for each, which {@link VetsCacheUpdater} applies to the
+ * cached vets once the transaction commits.
+ */
+@Service
+public class VetService {
+
+	private final VetRepository vets;
+
+	private final SpecialtyRepository specialties;
+
+	private final ApplicationEventPublisher events;
+
+	public VetService(VetRepository vets, SpecialtyRepository specialties, ApplicationEventPublisher events) {
+		this.vets = vets;
+		this.specialties = specialties;
+		this.events = events;
+	}
+
+	/**
+	 * Insert or update {@code vet}. The vet must not be one of the cached vets returned by
+	 * {@link VetRepository#findAll}, which other requests are reading; change a copy with
+	 * its id instead.
+	 */
+	@Transactional
+	public void saveVet(Vet vet) {
+		this.vets.save(vet);
+		this.events.publishEvent(new VetSavedEvent(vet));
+	}
+
+	/**
+	 * Insert or update {@code specialty}.
+	 */
+	@Transactional
+	public void saveSpecialty(Specialty specialty) {
+		boolean created = specialty.isNew();
+		this.specialties.save(specialty);
+		this.events.publishEvent(new SpecialtySavedEvent(specialty, created));
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the {@code vets} cache of {@link VetRepository#findAll} up to date, so that it
+ * does not have to expire. Once a save commits, a saved vet replaces the vet with its id
+ * in a copy of the cached vets, or is added to it; the vets are not loaded again. A
+ * changed specialty may be held by any vet, so it evicts the vets, while a new specialty
+ * leaves them as they are.
+ * <p>
+ * Updates are applied one at a time, so two vets saved at once are both kept. Every
+ * save writes to the cache, even when it holds no vets, so that the
+ * {@link org.springframework.samples.petclinic.system.VersionedCache} does not keep vets
+ * that were being loaded while the save committed. After each update the
+ * {@link VetsGeneration} advances, so that what was derived from the vets is derived
+ * again.
+ */
+@Component
+class VetsCacheUpdater {
+
+	private static final String CACHE = "vets";
+
+	private final CacheManager cacheManager;
+
+	private final VetsGeneration generation;
+
+	VetsCacheUpdater(CacheManager cacheManager, VetsGeneration generation) {
+		this.cacheManager = cacheManager;
+		this.generation = generation;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void vetSaved(VetSavedEvent event) {
+		Cache cache = this.cacheManager.getCache(CACHE);
+		if (cache == null) {
+			this.generation.advance();
+			return;
+		}
+		Cache.ValueWrapper cached = cache.get(SimpleKey.EMPTY);
+		if (cached == null || cached.get() == null) {
+			cache.evict(SimpleKey.EMPTY);
+			this.generation.advance();
+			return;
+		}
+		Vet saved = event.getVet();
+		@SuppressWarnings("unchecked")
+		Collection<Vet> vets = (Collection<Vet>) cached.get();
+		List<Vet> updated = new ArrayList<>(vets.size() + 1);
+		boolean replaced = false;
+		for (Vet vet : vets) {
+			if (vet.sameId(saved)) {
+				updated.add(saved);
+				replaced = true;
+			}
+			else {
+				updated.add(vet);
+			}
+		}
+		if (!replaced) {
+			updated.add(saved);
+		}
+		cache.put(SimpleKey.EMPTY, updated);
+		this.generation.advance();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void specialtySaved(SpecialtySavedEvent event) {
+		if (event.isCreated()) {
+			return;
+		}
+		Cache cache = this.cacheManager.getCache(CACHE);
+		if (cache != null) {
+			cache.evict(SimpleKey.EMPTY);
+		}
+		this.generation.advance();
+	}
+
+}
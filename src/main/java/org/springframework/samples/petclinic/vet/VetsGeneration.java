@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the saves that changed the cached vets. What is derived from
+ * {@link VetRepository#findAll} is kept until the generation moves on, rather than until
+ * {@code findAll} returns another collection, which a cache keeping the vets off the heap
+ * does on every hit.
+ */
+@Component
+class VetsGeneration {
+
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Return the current generation. Read it before the vets, so that vets read during a
+	 * save are not kept past it.
+	 */
+	long get() {
+		return this.generation.get();
+	}
+
+	/**
+	 * Start a new generation, once the cached vets were updated or evicted.
+	 */
+	void advance() {
+		this.generation.incrementAndGet();
+	}
+
+}
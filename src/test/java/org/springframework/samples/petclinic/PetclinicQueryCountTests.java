@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Replays the requests of one iteration of {@code src/test/jmeter/petclinic_test_plan.jmx}
+ * and counts the SQL statements they prepare. Like the plan, the new visit is posted with
+ * a date the form rejects, so it is shown again instead of being saved.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class PetclinicQueryCountTests {
+
+	private static final int OWNERS = 10;
+
+	private static final int PETS = 13;
+
+	/**
+	 * The statements a warm iteration prepared before owners, pet types and visits were
+	 * cached.
+	 */
+	private static final double UNCACHED_STATEMENTS_PER_ITERATION = 22;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PetTimedCache pets;
+
+	@Test
+	void warmIterationPreparesAtMostHalfTheStatements() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// every owner and pet is visited once before counting
+		for (int iteration = 0; iteration < Math.max(OWNERS, PETS); iteration++) {
+			iterate(iteration);
+		}
+		statistics.clear();
+		for (int iteration = 0; iteration < OWNERS * PETS; iteration++) {
+			iterate(iteration);
+		}
+		double perIteration = (double) statistics.getPrepareStatementCount() / (OWNERS * PETS);
+
+		assertTrue(perIteration <= UNCACHED_STATEMENTS_PER_ITERATION / 2,
+				perIteration + " statements per iteration");
+	}
+
+	@Test
+	void petEditFormFindsThePetAmongThePetsOfItsOwner() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		int[][] ownerAndPet = { { 1, 1 }, { 2, 2 }, { 3, 3 }, { 3, 4 }, { 6, 7 }, { 6, 8 } };
+		// loads the pet types before counting
+		mockMvc.perform(get("/owners/{ownerId}/pets/new", 1)).andExpect(status().isOk());
+		statistics.clear();
+		for (int[] ids : ownerAndPet) {
+			pets.invalidate(ids[1]);
+			mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", ids[0], ids[1]))
+					.andExpect(status().isOk());
+		}
+		double perRequest = (double) statistics.getPrepareStatementCount() / ownerAndPet.length;
+
+		// one statement loads the owner with its pets and their types
+		assertTrue(perRequest <= 1, perRequest + " statements per request");
+	}
+
+	private void iterate(int iteration) throws Exception {
+		int owner = iteration % OWNERS + 1;
+		int pet = iteration % PETS + 1;
+		mockMvc.perform(get("/")).andExpect(status().isOk());
+		mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+		mockMvc.perform(get("/owners/find")).andExpect(status().isOk());
+		mockMvc.perform(get("/owners").param("lastName", "")).andExpect(status().isOk());
+		mockMvc.perform(get("/owners/{ownerId}", owner)).andExpect(status().isOk());
+		mockMvc.perform(get("/owners/{ownerId}/edit", owner)).andExpect(status().isOk());
+		mockMvc.perform(post("/owners/{ownerId}/edit", owner).param("firstName", "Test")
+				.param("lastName", String.valueOf(owner)).param("address", "1234 Test St.").param("city", "TestCity")
+				.param("telephone", "612345678")).andExpect(status().is3xxRedirection());
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", owner, pet)).andExpect(status().isOk());
+		mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", owner, pet).param("date", "2013/02/22")
+				.param("description", "visit")).andExpect(status().isOk());
+		mockMvc.perform(get("/owners/{ownerId}", owner)).andExpect(status().isOk());
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.springframework.samples.petclinic.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortedViewTests {
+
+	private static final Comparator<NamedEntity> BY_NAME = Comparator.comparing(NamedEntity::getName);
+
+	private final NamedEntity a = named("a");
+
+	private final NamedEntity b = named("b");
+
+	private final NamedEntity c = named("c");
+
+	private final Set<NamedEntity> entities = new HashSet<>(Arrays.asList(c, a, b));
+
+	@Test
+	void unchangedEntitiesReuseTheView() {
+		SortedView<NamedEntity> view = SortedView.of(null, entities, BY_NAME);
+
+		assertThat(view.getList()).containsExactly(a, b, c);
+		assertThat(SortedView.of(view, entities, BY_NAME)).isSameAs(view);
+		assertThatThrownBy(() -> view.getList().add(a)).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void changedEntitiesRebuildTheView() {
+		SortedView<NamedEntity> view = SortedView.of(null, entities, BY_NAME);
+
+		a.setName("d");
+		view = SortedView.of(view, entities, BY_NAME);
+		assertThat(view.getList()).containsExactly(b, c, a);
+
+		NamedEntity e = named("e");
+		entities.add(e);
+		view = SortedView.of(view, entities, BY_NAME);
+		assertThat(view.getList()).containsExactly(b, c, a, e);
+
+		assertThat(SortedView.of(view, new HashSet<>(entities), BY_NAME)).isNotSameAs(view);
+	}
+
+	private static NamedEntity named(String name) {
+		NamedEntity entity = new NamedEntity();
+		entity.setName(name);
+		return entity;
+	}
+
+}
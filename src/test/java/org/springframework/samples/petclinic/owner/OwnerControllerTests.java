@@ -28,17 +28,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.samples.petclinic.utility.CacheScheduler;
+import org.springframework.samples.petclinic.utility.OwnerTimedCache;
+import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.samples.petclinic.utility.VisitTimedCache;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -48,7 +57,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  *
  * @author Colin But
  */
-@WebMvcTest(OwnerController.class)
+@WebMvcTest(value = { OwnerController.class, VisitController.class },
+		includeFilters = {
+	@ComponentScan.Filter(value = OwnerTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = PetTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = VisitTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = CacheScheduler.class, type = FilterType.ASSIGNABLE_TYPE),
+	}
+	)
 class OwnerControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -56,9 +72,18 @@ class OwnerControllerTests {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private OwnerTimedCache ownerCache;
+
+	@Autowired
+	private PetTimedCache petCache;
+
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private PetRepository pets;
+
 	@MockBean
 	private VisitRepository visits;
 
@@ -82,6 +107,10 @@ class OwnerControllerTests {
 		max.setBirthDate(LocalDate.now());
 		george.setPetsInternal(Collections.singleton(max));
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+		given(this.pets.findById(max.getId())).willReturn(petOf(george, max));
+		// the caches outlive each test, so none starts with what the previous one cached
+		this.ownerCache.invalidate(TEST_OWNER_ID);
+		this.petCache.invalidate(max.getId());
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
 		given(this.visits.findByPetId(max.getId())).willReturn(Collections.singletonList(visit));
@@ -157,6 +186,27 @@ class OwnerControllerTests {
 				.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testRenamedOwnerIsShownOnTheVisitForm() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 1))
+				.andExpect(status().isOk()).andExpect(content().string(containsString("George Franklin")));
+		Owner joe = new Owner();
+		joe.setId(TEST_OWNER_ID);
+		joe.setFirstName("Joe");
+		joe.setLastName("Bloggs");
+		Pet max = petOf(joe, george.getPets().get(0));
+		joe.setPetsInternal(Collections.singleton(max));
+		given(this.owners.findById(TEST_OWNER_ID)).willReturn(joe);
+		given(this.pets.findById(max.getId())).willReturn(max);
+
+		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs").param("address", "110 W. Liberty St.").param("city", "Madison")
+				.param("telephone", "6085551023")).andExpect(status().is3xxRedirection());
+
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, 1))
+				.andExpect(status().isOk()).andExpect(content().string(containsString("Joe Bloggs")));
+	}
+
 	@Test
 	void testProcessUpdateOwnerFormHasErrors() throws Exception {
 		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
@@ -196,4 +246,23 @@ class OwnerControllerTests {
 				}))).andExpect(view().name("owners/ownerDetails"));
 	}
 
+	@Test
+	void testShowOwnerLeavesCachedPetsWithoutVisits() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk());
+
+		for (Pet pet : this.ownerCache.get(TEST_OWNER_ID).getPets()) {
+			assertTrue(pet.getVisits().isEmpty());
+		}
+	}
+
+	private static Pet petOf(Owner owner, Pet pet) {
+		Pet copy = new Pet();
+		copy.setId(pet.getId());
+		copy.setName(pet.getName());
+		copy.setType(pet.getType());
+		copy.setBirthDate(pet.getBirthDate());
+		copy.setOwner(owner);
+		return copy;
+	}
+
 }
@@ -0,0 +1,85 @@
+package org.springframework.samples.petclinic.owner;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Measures rendering {@code ownerDetails.html} for an owner with 50 pets of 200 visits
+ * each. The owner and the visits are cached after the first request, so the time is
+ * spent sorting the pets and visits and rendering them. Run with {@code -prof gc} to see
+ * the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerDetailsBenchmark {
+
+	private static final int OWNER = 100;
+
+	private static final int PETS = 50;
+
+	private static final int VISITS = 200;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "logging.level.root=WARN")
+			.run();
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		jdbc.update("INSERT INTO owners VALUES (?, 'Many', 'Pets', '1 Main St.', 'Madison', '6085551234')", OWNER);
+		List<Object[]> pets = new ArrayList<>();
+		List<Object[]> visits = new ArrayList<>();
+		LocalDate first = LocalDate.of(2000, 1, 1);
+		for (int pet = 0; pet < PETS; pet++) {
+			int petId = 1000 + pet;
+			pets.add(new Object[] { petId, "Pet" + (pet * 37 % PETS), Date.valueOf(first), OWNER });
+			for (int visit = 0; visit < VISITS; visit++) {
+				visits.add(new Object[] { petId * VISITS + visit, petId,
+					Date.valueOf(first.plusDays(visit * 7919L % 3650)), "visit " + visit });
+			}
+		}
+		jdbc.batchUpdate("INSERT INTO pets VALUES (?, ?, ?, 1, ?)", pets);
+		jdbc.batchUpdate("INSERT INTO visits VALUES (?, ?, ?, ?)", visits);
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public MvcResult ownerDetails() throws Exception {
+		return mockMvc.perform(get("/owners/{ownerId}", OWNER)).andReturn();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OwnerDetailsBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -31,7 +31,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.samples.petclinic.utility.CacheScheduler;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
+import org.springframework.samples.petclinic.utility.OwnerTimedCache;
 import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.samples.petclinic.utility.PetTypeTimedCache;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
@@ -45,6 +49,10 @@ import org.springframework.test.web.servlet.MockMvc;
 	@ComponentScan.Filter(value = PetService.class, type = FilterType.ASSIGNABLE_TYPE),
 	@ComponentScan.Filter(value = LoggerConfig.class, type = FilterType.ASSIGNABLE_TYPE),
 	@ComponentScan.Filter(value = PetTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = OwnerTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = PetTypeTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = CacheScheduler.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = EntityRegistry.class, type = FilterType.ASSIGNABLE_TYPE),
 	}
 	)
 class PetControllerTests {
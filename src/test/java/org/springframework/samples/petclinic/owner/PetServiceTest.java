@@ -6,6 +6,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.slf4j.Logger;
 import org.springframework.samples.petclinic.util.DummyEntityGenerator;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
 import org.springframework.samples.petclinic.utility.PetTimedCache;
 
 import java.util.Arrays;
@@ -28,7 +29,7 @@ public class PetServiceTest {
 		private final HashMap<Integer, Pet> pets;
 
 		public FakePetService(PetTimedCache pets, OwnerRepository owners, Logger criticalLogger) {
-			super(pets, owners, criticalLogger);
+			super(pets, owners, null, new EntityRegistry(), criticalLogger);
 			this.pets = new HashMap<>();
 		}
 
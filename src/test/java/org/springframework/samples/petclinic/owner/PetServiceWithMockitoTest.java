@@ -7,6 +7,7 @@ import org.junit.runners.Parameterized;
 import org.mockito.Mockito;
 import org.slf4j.LoggerFactory;
 import org.springframework.samples.petclinic.util.DummyEntityGenerator;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
 import org.springframework.samples.petclinic.utility.PetTimedCache;
 
 import java.util.Arrays;
@@ -32,7 +33,7 @@ public class PetServiceWithMockitoTest {
 
 	static {
 		PetTimedCache mockedPetCache = Mockito.mock(PetTimedCache.class);
-		petService = new PetService(mockedPetCache, null, LoggerFactory.getLogger("test"));
+		petService = new PetService(mockedPetCache, null, null, new EntityRegistry(), LoggerFactory.getLogger("test"));
 		pet1 = DummyEntityGenerator.getNewDummyPet();
 		pet1.setId(1);
 		pet1.setName("cat1");
@@ -28,6 +28,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.samples.petclinic.utility.CacheScheduler;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
+import org.springframework.samples.petclinic.utility.PetTypeTimedCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -47,7 +50,8 @@ class PetTypeFormatterTests {
 
 	@BeforeEach
 	void setup() {
-		this.petTypeFormatter = new PetTypeFormatter(pets);
+		this.petTypeFormatter = new PetTypeFormatter(new PetTypeTimedCache(pets, new CacheScheduler()),
+				new EntityRegistry());
 	}
 
 	@Test
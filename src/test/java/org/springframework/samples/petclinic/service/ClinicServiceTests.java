@@ -19,6 +19,7 @@ package org.springframework.samples.petclinic.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.junit.jupiter.api.Test;
@@ -27,7 +28,11 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.samples.petclinic.owner.*;
+import org.springframework.samples.petclinic.utility.CacheScheduler;
+import org.springframework.samples.petclinic.utility.EntityRegistry;
+import org.springframework.samples.petclinic.utility.OwnerTimedCache;
 import org.springframework.samples.petclinic.utility.PetTimedCache;
+import org.springframework.samples.petclinic.utility.PetTypeTimedCache;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.samples.petclinic.visit.Visit;
@@ -68,7 +73,11 @@ import org.springframework.transaction.annotation.Transactional;
 	@ComponentScan.Filter(Service.class),
 	@ComponentScan.Filter(value = PetTypeFormatter.class, type = FilterType.ASSIGNABLE_TYPE),
 	@ComponentScan.Filter(value = LoggerConfig.class, type = FilterType.ASSIGNABLE_TYPE),
-	@ComponentScan.Filter(value = PetTimedCache.class, type = FilterType.ASSIGNABLE_TYPE)
+	@ComponentScan.Filter(value = PetTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = OwnerTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = PetTypeTimedCache.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = CacheScheduler.class, type = FilterType.ASSIGNABLE_TYPE),
+	@ComponentScan.Filter(value = EntityRegistry.class, type = FilterType.ASSIGNABLE_TYPE)
 })
 class ClinicServiceTests {
 
@@ -144,6 +153,12 @@ class ClinicServiceTests {
 
 	}
 
+	@Test
+	void shouldFindPetsByIds() {
+		Collection<Pet> pets = this.pets.findByIdIn(Arrays.asList(7, 8, 99));
+		assertThat(pets).extracting(Pet::getName).containsExactlyInAnyOrder("Samantha", "Max");
+	}
+
 	@Test
 	void shouldFindAllPetTypes() {
 		Collection<PetType> petTypes = this.pets.findPetTypes();
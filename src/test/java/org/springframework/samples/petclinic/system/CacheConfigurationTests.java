@@ -0,0 +1,122 @@
+package org.springframework.samples.petclinic.system;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link CacheConfiguration}
+ */
+class CacheConfigurationTests {
+
+	@Test
+	void vetsCacheIsCreatedWithDefaultsWhenNotConfigured() {
+		try (CacheManager cacheManager = new CacheConfiguration().jCacheCacheManager(new MockEnvironment())) {
+			assertThat(cacheManager.getCacheNames()).containsExactly("vets");
+		}
+	}
+
+	@Test
+	void vetsSurviveTheOffHeapAndDiskTiers(@TempDir Path directory) {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.jcache.disk-directory", directory.toString())
+			.withProperty("petclinic.jcache.caches.vets.heap-entries", "0")
+			.withProperty("petclinic.jcache.caches.vets.off-heap-megabytes", "0")
+			.withProperty("petclinic.jcache.caches.vets.disk-megabytes", "8")
+			.withProperty("petclinic.jcache.caches.specialties.heap-entries", "0")
+			.withProperty("petclinic.jcache.caches.specialties.off-heap-megabytes", "4");
+		List<Vet> vets = new ArrayList<>(Collections.singletonList(vet()));
+
+		try (CacheManager cacheManager = new CacheConfiguration().jCacheCacheManager(environment)) {
+			Cache<Object, Object> onDisk = cacheManager.getCache("vets");
+			Cache<Object, Object> offHeap = cacheManager.getCache("specialties");
+			onDisk.put("all", vets);
+			offHeap.put("all", vets);
+
+			for (Cache<Object, Object> cache : Arrays.asList(onDisk, offHeap)) {
+				@SuppressWarnings("unchecked")
+				List<Vet> cached = (List<Vet>) cache.get("all");
+				assertThat(cached).isNotSameAs(vets);
+				assertThat(cached.get(0).getLastName()).isEqualTo("Carter");
+				assertThat(cached.get(0).getSpecialties().get(0).getName()).isEqualTo("radiology");
+			}
+		}
+	}
+
+	@Test
+	void entriesExpireAfterTheirTimeToLive() throws InterruptedException {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.jcache.caches.vets.time-to-live-millis", "50");
+
+		try (CacheManager cacheManager = new CacheConfiguration().jCacheCacheManager(environment)) {
+			Cache<Object, Object> cache = cacheManager.getCache("vets");
+			cache.put("all", "vets");
+			assertThat(cache.get("all")).isEqualTo("vets");
+
+			Thread.sleep(100);
+
+			assertThat(cache.get("all")).isNull();
+		}
+	}
+
+	@Test
+	void diskTierWithoutDirectoryIsRejected() {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.jcache.caches.vets.disk-megabytes", "8");
+
+		assertThatThrownBy(() -> new CacheConfiguration().jCacheCacheManager(environment))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("petclinic.jcache.caches.vets.disk-megabytes")
+			.hasMessageContaining("petclinic.jcache.disk-directory");
+	}
+
+	@Test
+	void tiersWithoutHeapTierOnTopAreRejected(@TempDir Path directory) {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.jcache.disk-directory", directory.toString())
+			.withProperty("petclinic.jcache.caches.vets.heap-entries", "0")
+			.withProperty("petclinic.jcache.caches.vets.off-heap-megabytes", "4")
+			.withProperty("petclinic.jcache.caches.vets.disk-megabytes", "8");
+
+		assertThatThrownBy(() -> new CacheConfiguration().jCacheCacheManager(environment))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("petclinic.jcache.caches.vets.heap-entries");
+	}
+
+	@Test
+	void cacheWithoutTiersIsRejected() {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.jcache.caches.vets.heap-entries", "0");
+
+		assertThatThrownBy(() -> new CacheConfiguration().jCacheCacheManager(environment))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("petclinic.jcache.caches.vets.heap-entries");
+	}
+
+	private static Vet vet() {
+		Specialty radiology = new Specialty();
+		radiology.setId(1);
+		radiology.setName("radiology");
+		Vet vet = new Vet();
+		vet.setId(1);
+		vet.setFirstName("James");
+		vet.setLastName("Carter");
+		vet.addSpecialty(radiology);
+		return vet;
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSchedulerTest {
+
+	private static final long SHUTDOWN_LATENCY_MILLIS = 1000;
+
+	private final CacheScheduler scheduler = new CacheScheduler();
+
+	@AfterEach
+	void stopScheduler() {
+		scheduler.stop();
+	}
+
+	@Test
+	void registeredTasksShareOneThread() throws Exception {
+		scheduler.start();
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		CountDownLatch ran = new CountDownLatch(30);
+		for (int i = 0; i < 3; i++) {
+			scheduler.register(() -> {
+				threads.add(Thread.currentThread());
+				ran.countDown();
+			}, 1);
+		}
+
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+		assertEquals(1, threads.size());
+	}
+
+	@Test
+	void tasksRegisteredBeforeStartRunOnceStarted() throws Exception {
+		CountDownLatch ran = new CountDownLatch(1);
+		scheduler.register(ran::countDown, 10);
+
+		assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+		scheduler.start();
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void cancelledTaskStopsRunning() throws Exception {
+		scheduler.start();
+		CountDownLatch ran = new CountDownLatch(1);
+		CacheScheduler.Registration registration = scheduler.register(ran::countDown, 10);
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+		registration.cancel();
+		CountDownLatch again = new CountDownLatch(1);
+		registration = scheduler.register(again::countDown, 10);
+		registration.cancel();
+
+		assertFalse(again.await(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void stopInterruptsRunningWorkPromptly() throws Exception {
+		scheduler.start();
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		CountDownLatch refreshing = new CountDownLatch(1);
+		CountDownLatch maintained = new CountDownLatch(1);
+		scheduler.execute(() -> {
+			threads.add(Thread.currentThread());
+			refreshing.countDown();
+			try {
+				Thread.sleep(60_000);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		scheduler.register(() -> {
+			threads.add(Thread.currentThread());
+			maintained.countDown();
+		}, 10);
+		assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+		assertTrue(maintained.await(5, TimeUnit.SECONDS));
+
+		long started = System.nanoTime();
+		scheduler.stop();
+		long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+		assertTrue(tookMillis < SHUTDOWN_LATENCY_MILLIS, "stop took " + tookMillis + " ms");
+		assertFalse(scheduler.isRunning());
+		assertEquals(2, threads.size());
+		assertTerminated(threads);
+		assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> {
+		}));
+	}
+
+	@Test
+	void closingTheContextStopsAllCacheThreads() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(CacheScheduler.class);
+		CacheScheduler contextScheduler = context.getBean(CacheScheduler.class);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		CountDownLatch ran = new CountDownLatch(1);
+		contextScheduler.register(() -> {
+			threads.add(Thread.currentThread());
+			ran.countDown();
+		}, 10);
+		assertTrue(contextScheduler.isRunning());
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+		long started = System.nanoTime();
+		context.close();
+		long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+		assertTrue(tookMillis < SHUTDOWN_LATENCY_MILLIS, "close took " + tookMillis + " ms");
+		assertFalse(contextScheduler.isRunning());
+		assertTerminated(threads);
+	}
+
+	private static void assertTerminated(Set<Thread> threads) throws InterruptedException {
+		// a worker may still be unwinding right after its pool reported termination
+		for (Thread thread : threads) {
+			thread.join(SHUTDOWN_LATENCY_MILLIS);
+			assertFalse(thread.isAlive(), thread.getName() + " is still running");
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a {@link PetTimedCache} takes to start from a snapshot of
+ * {@code size} pets, on the heap and off the heap. Each invocation restores into a new
+ * cache from the same file, which was written once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-XX:MaxDirectMemorySize=2g" })
+public class CacheSnapshotBenchmark {
+
+	@Param({ "500000" })
+	int size;
+
+	@Param({ "0", "1024" })
+	int offHeapMegabytes;
+
+	private CacheScheduler scheduler;
+
+	private Path directory;
+
+	private String file;
+
+	private PetTimedCache cache;
+
+	@Setup(Level.Trial)
+	public void writeSnapshot() throws IOException {
+		scheduler = new CacheScheduler();
+		scheduler.start();
+		directory = Files.createTempDirectory("pet-snapshot");
+		file = directory.resolve("pets.snapshot").toString();
+		PetTimedCache warm = newCache();
+		for (int id = 0; id < size; id++) {
+			warm.get(id);
+		}
+		warm.destroy();
+	}
+
+	@TearDown(Level.Invocation)
+	public void dropCache() {
+		cache.destroy();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteSnapshot() throws IOException {
+		scheduler.stop();
+		Files.deleteIfExists(directory.resolve("pets.snapshot"));
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public PetTimedCache restore() {
+		cache = newCache();
+		return cache;
+	}
+
+	private PetTimedCache newCache() {
+		return new PetTimedCache(new PetTimedCacheStorageBenchmark.GeneratingPetRepository(), scheduler,
+				new CacheSettings().setExpiryMillis(TimeUnit.HOURS.toMillis(1)).setOffHeapMegabytes(offHeapMegabytes)
+					.setSnapshotFile(file).setSnapshotMaxAgeMillis(TimeUnit.HOURS.toMillis(1)));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CacheSnapshotBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsBackWhatWasWritten() throws Exception {
+		CacheSnapshot snapshot = new CacheSnapshot(directory.resolve("pets.snapshot"));
+		snapshot.write(records(), 1000);
+
+		Map<Integer, String> read = new LinkedHashMap<>();
+		int count = snapshot.read(2000, 60000, (key, record, deadline) -> read.put(key, new String(record, StandardCharsets.UTF_8)));
+
+		assertEquals(2, count);
+		assertEquals("Leo", read.get(1));
+		assertEquals("Basil", read.get(2));
+	}
+
+	@Test
+	void skipsRecordsPastTheirDeadline() throws Exception {
+		CacheSnapshot snapshot = new CacheSnapshot(directory.resolve("pets.snapshot"));
+		snapshot.write(records(), 1000);
+
+		Map<Integer, Long> deadlines = new LinkedHashMap<>();
+		int count = snapshot.read(4000, 60000, (key, record, deadline) -> deadlines.put(key, deadline));
+
+		assertEquals(1, count);
+		assertEquals(5000, deadlines.get(2));
+	}
+
+	@Test
+	void ignoresSnapshotsOlderThanTheMaximumAge() throws Exception {
+		CacheSnapshot snapshot = new CacheSnapshot(directory.resolve("pets.snapshot"));
+		snapshot.write(records(), 1000);
+
+		assertEquals(0, snapshot.read(70000, 60000, (key, record, deadline) -> fail("stale record " + key)));
+	}
+
+	@Test
+	void ignoresCorruptedSnapshots() throws Exception {
+		Path file = directory.resolve("pets.snapshot");
+		CacheSnapshot snapshot = new CacheSnapshot(file);
+		snapshot.write(records(), 1000);
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(file, bytes);
+
+		assertEquals(0, snapshot.read(2000, 60000, (key, record, deadline) -> fail("corrupted record " + key)));
+	}
+
+	@Test
+	void startsColdWithoutSnapshot() {
+		CacheSnapshot snapshot = new CacheSnapshot(directory.resolve("missing.snapshot"));
+
+		assertEquals(0, snapshot.read(2000, 60000, (key, record, deadline) -> fail("record " + key)));
+	}
+
+	private static Map<Integer, CacheSnapshot.Record> records() {
+		Map<Integer, CacheSnapshot.Record> records = new LinkedHashMap<>();
+		records.put(1, new CacheSnapshot.Record("Leo".getBytes(StandardCharsets.UTF_8), 3000));
+		records.put(2, new CacheSnapshot.Record("Basil".getBytes(StandardCharsets.UTF_8), 5000));
+		return records;
+	}
+
+}
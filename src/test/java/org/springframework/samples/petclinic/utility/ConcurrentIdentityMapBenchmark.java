@@ -0,0 +1,78 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a shared entity registry under a read-mostly mix of lookups and replacements
+ * from a growing number of threads. {@link ConcurrentIdentityMap} is compared with an
+ * {@link IdentityMap} behind {@link Collections#synchronizedCollection}, the simplest
+ * way to share the unsynchronized class.
+ * <p>
+ * {@link #main} runs the benchmark with 1 to 32 threads; the throughput of a scaling
+ * implementation grows with the threads up to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentIdentityMapBenchmark {
+
+	private static final int SIZE = 100_000;
+
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+
+	@Param({ "synchronized", "concurrent" })
+	String implementation;
+
+	/**
+	 * The percentage of operations that replace an entity instead of looking it up.
+	 */
+	@Param({ "10" })
+	int writePercent;
+
+	private BaseEntity[] entities;
+
+	private Collection<BaseEntity> map;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		map = implementation.equals("concurrent") ? new ConcurrentIdentityMap<>()
+			: Collections.synchronizedCollection(new IdentityMap<>());
+		entities = new BaseEntity[SIZE];
+		for (int id = 0; id < SIZE; id++) {
+			BaseEntity entity = new BaseEntity();
+			entity.setId(id);
+			entities[id] = entity;
+			map.add(entity);
+		}
+	}
+
+	@Benchmark
+	public boolean mixed() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		BaseEntity entity = entities[random.nextInt(SIZE)];
+		if (random.nextInt(100) < writePercent) {
+			return map.add(entity);
+		}
+		return map.contains(entity);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : THREADS) {
+			new Runner(new OptionsBuilder().include(ConcurrentIdentityMapBenchmark.class.getSimpleName())
+				.threads(threads).build()).run();
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIdentityMapTest {
+
+	private static final int THREADS = 8;
+
+	private static final int IDS_PER_THREAD = 10_000;
+
+	private final ConcurrentIdentityMap<Pet> map = new ConcurrentIdentityMap<>();
+
+	@Test
+	void addingAnEntityWithAKnownIdReplacesIt() {
+		map.add(pet(1, "Leo"));
+		Pet renamed = pet(1, "Rosy");
+
+		map.add(renamed);
+
+		assertEquals(1, map.size());
+		assertSame(renamed, map.get(1));
+		assertSame(renamed, map.addIfAbsent(pet(1, "Basil")));
+		assertNull(map.replace(pet(2, "Basil")));
+		assertFalse(map.contains(pet(2, "any")));
+	}
+
+	@Test
+	void concurrentUpdatesOfDistinctIdsAreAllApplied() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			int first = thread * IDS_PER_THREAD;
+			workers.add(executor.submit(() -> {
+				start.await();
+				for (int id = first; id < first + IDS_PER_THREAD; id++) {
+					map.add(pet(id, "pet " + id));
+				}
+				for (int id = first; id < first + IDS_PER_THREAD; id += 2) {
+					map.remove(pet(id, "any"));
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> worker : workers) {
+			worker.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(THREADS * IDS_PER_THREAD / 2, map.size());
+		assertNull(map.get(0));
+		assertEquals("pet 1", map.get(1).getName());
+	}
+
+	@Test
+	void iterationToleratesConcurrentChanges() {
+		for (int id = 1; id <= 100; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		int visited = 0;
+
+		for (Iterator<Pet> iterator = map.iterator(); iterator.hasNext(); ) {
+			Pet pet = iterator.next();
+			visited++;
+			map.remove(pet(pet.getId() % 100 + 1, "any"));
+			if (pet.getId() % 3 == 0) {
+				iterator.remove();
+			}
+		}
+
+		assertTrue(visited > 0 && visited <= 100);
+		assertTrue(map.size() < 100);
+	}
+
+	@Test
+	void sortReturnsASnapshot() {
+		map.add(pet(1, "Rosy"));
+		map.add(pet(2, "Basil"));
+		map.add(pet(3, "Leo"));
+
+		List<Pet> sorted = map.sort(Comparator.comparing(Pet::getName));
+		map.remove(pet(2, "any"));
+
+		assertEquals(Arrays.asList("Basil", "Leo", "Rosy"),
+			sorted.stream().map(Pet::getName).collect(Collectors.toList()));
+		assertThrows(UnsupportedOperationException.class, () -> sorted.remove(0));
+	}
+
+	@Test
+	void entitiesWithoutIdAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> map.add(new Pet()));
+		assertFalse(map.contains(new Pet()));
+		assertFalse(map.remove(new Pet()));
+	}
+
+	private static Pet pet(int id, String name) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setName(name);
+		return pet;
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityRegistryTest {
+
+	private final EntityRegistry registry = new EntityRegistry();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@AfterEach
+	void endRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void entitiesAreLoadedOncePerRequest() {
+		startRequest();
+		Pet first = registry.find(Pet.class, 1, this::load);
+
+		assertSame(first, registry.find(Pet.class, 1, this::load));
+		assertNull(registry.find(Pet.class, 0, this::load));
+		assertEquals(2, loads.get());
+
+		startRequest();
+		assertNotSame(first, registry.find(Pet.class, 1, this::load));
+	}
+
+	@Test
+	void outsideOfARequestEveryLookupLoads() {
+		registry.find(Pet.class, 1, this::load);
+		registry.find(Pet.class, 1, this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void registeredEntitiesReplaceLoadedOnes() {
+		startRequest();
+		Pet registered = load(1);
+
+		assertSame(registered, registry.register(registered));
+		assertSame(registered, registry.register(load(1)));
+		assertSame(registered, registry.find(Pet.class, 1, this::load));
+
+		PetType dog = type(2, "dog");
+		registry.register(dog);
+		List<PetType> types = registry.findAll(PetType.class, () -> Arrays.asList(type(1, "cat"), type(2, "dog")));
+
+		assertSame(dog, types.get(1));
+		assertSame(types, registry.findAll(PetType.class, () -> fail("types loaded twice")));
+	}
+
+	@Test
+	void evictedEntityIsLoadedAgain() {
+		startRequest();
+		Pet pet = registry.find(Pet.class, 1, this::load);
+
+		registry.evict(pet);
+
+		assertNotSame(pet, registry.find(Pet.class, 1, this::load));
+		assertEquals(2, loads.get());
+	}
+
+	private Pet load(int id) {
+		loads.incrementAndGet();
+		if (id == 0) {
+			return null;
+		}
+		Pet pet = new Pet();
+		pet.setId(id);
+		return pet;
+	}
+
+	private static PetType type(int id, String name) {
+		PetType type = new PetType();
+		type.setId(id);
+		type.setName(name);
+		return type;
+	}
+
+	private static void startRequest() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+	}
+
+}
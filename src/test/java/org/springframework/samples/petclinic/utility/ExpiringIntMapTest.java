@@ -0,0 +1,103 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringIntMapTest {
+
+	private final ExpiringIntMap<String> map = new ExpiringIntMap<>();
+
+	@Test
+	void hidesValuesOnceTheirDeadlinePassed() {
+		map.put(1, "Leo", 100);
+
+		assertEquals("Leo", map.get(1, 99));
+		assertNull(map.get(1, 100));
+		assertEquals("Leo", map.get(1));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	void expiresOnlyTheValueOfTheGivenDeadline() {
+		map.put(1, "Leo", 100);
+		map.put(1, "Basil", 200);
+
+		assertNull(map.expire(1, 100));
+		assertEquals("Basil", map.expire(1, 200));
+		assertNull(map.get(1));
+	}
+
+	@Test
+	void putIfSeesTheCurrentValue() {
+		map.put(1, "Leo", 100);
+
+		assertFalse(map.putIf(1, "Basil", 200, current -> current == null));
+		assertTrue(map.putIf(1, "Basil", 200, "Leo"::equals));
+		assertEquals("Basil", map.get(1, 150));
+	}
+
+	@Test
+	void keepsAllKeysThroughGrowthAndRemovals() {
+		for (int key = -5000; key < 5000; key++) {
+			map.put(key, "pet" + key, ExpiringIntMap.NEVER);
+		}
+		for (int key = -5000; key < 5000; key += 2) {
+			assertEquals("pet" + key, map.remove(key));
+		}
+		for (int key = 5000; key < 10000; key++) {
+			map.put(key, "pet" + key, ExpiringIntMap.NEVER);
+		}
+
+		assertEquals(10000, map.size());
+		for (int key = -5000; key < 10000; key++) {
+			boolean removed = key < 5000 && (key & 1) == 0;
+			assertEquals(removed ? null : "pet" + key, map.get(key, 0), "key " + key);
+		}
+	}
+
+	@Test
+	void rejectsReservedKeys() {
+		assertThrows(IllegalArgumentException.class, () -> map.put(Integer.MIN_VALUE, "Leo", 100));
+	}
+
+	@Test
+	void readersNeverSeeAnotherKeysValue() throws Exception {
+		ExpiringIntMap<Integer> values = new ExpiringIntMap<>();
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> readers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			readers.add(executor.submit(() -> {
+				while (running.get()) {
+					for (int key = 0; key < 1000; key++) {
+						Integer value = values.get(key, 0);
+						assertTrue(value == null || value == key, "key " + key + " mapped to " + value);
+					}
+				}
+			}));
+		}
+		for (int round = 0; round < 200; round++) {
+			for (int key = 0; key < 1000; key++) {
+				values.put(key, key, ExpiringIntMap.NEVER);
+			}
+			for (int key = 0; key < 1000; key++) {
+				values.remove(key);
+			}
+		}
+		running.set(false);
+		for (Future<?> reader : readers) {
+			reader.get(5, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+	}
+
+}
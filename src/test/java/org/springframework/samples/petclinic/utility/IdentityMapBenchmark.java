@@ -0,0 +1,125 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-entity operations and a full iteration of {@link IdentityMap}, and
+ * compares replacing and removing an entity with the former list scan, which is kept
+ * here as {@code scan*}. Every removal is followed by adding the entity back, so the size
+ * stays at {@code size}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentityMapBenchmark {
+
+	private static final int LOOKUPS = 1 << 12;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	private IdentityMap<BaseEntity> map;
+
+	private List<BaseEntity> scanEntities;
+
+	private Set<Integer> scanIds;
+
+	private BaseEntity[] lookups;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		map = new IdentityMap<>();
+		scanEntities = new ArrayList<>(size);
+		scanIds = new HashSet<>(size);
+		for (int id = 0; id < size; id++) {
+			BaseEntity entity = entity(id);
+			map.add(entity);
+			scanEntities.add(entity);
+			scanIds.add(id);
+		}
+		Random random = new Random(42);
+		lookups = new BaseEntity[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookups[i] = entity(random.nextInt(size));
+		}
+	}
+
+	private static BaseEntity entity(int id) {
+		BaseEntity entity = new BaseEntity();
+		entity.setId(id);
+		return entity;
+	}
+
+	private BaseEntity nextLookup() {
+		return lookups[next++ & (LOOKUPS - 1)];
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return map.contains(nextLookup());
+	}
+
+	@Benchmark
+	public BaseEntity get() {
+		return map.get(nextLookup().getId());
+	}
+
+	@Benchmark
+	public boolean replace() {
+		return map.add(nextLookup());
+	}
+
+	@Benchmark
+	public boolean removeAndAdd() {
+		BaseEntity entity = nextLookup();
+		map.remove(entity);
+		return map.add(entity);
+	}
+
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		for (BaseEntity entity : map) {
+			sum += entity.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public boolean scanReplace() {
+		BaseEntity entity = nextLookup();
+		scanEntities.removeIf(entity::sameId);
+		return scanEntities.add(entity);
+	}
+
+	@Benchmark
+	public boolean scanRemoveAndAdd() {
+		BaseEntity entity = nextLookup();
+		if (scanIds.remove(entity.getId())) {
+			scanEntities.removeIf(entity::sameId);
+		}
+		scanIds.add(entity.getId());
+		return scanEntities.add(entity);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IdentityMapBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an aggregate over the entities of an {@link IdentityMap} with a sequential
+ * and a parallel stream, against copying the entities into a list first, and replacing
+ * or removing and adding back a batch of entities with the bulk operations, against
+ * doing so one by one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentityMapStreamBenchmark {
+
+	@Param({ "1000000" })
+	int size;
+
+	@Param({ "100000" })
+	int batchSize;
+
+	private IdentityMap<BaseEntity> map;
+
+	private List<BaseEntity> batch;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		map = new IdentityMap<>();
+		batch = new ArrayList<>(batchSize);
+		for (int id = 0; id < size; id++) {
+			BaseEntity entity = new BaseEntity();
+			entity.setId(id);
+			map.add(entity);
+			if (id % (size / batchSize) == 0) {
+				batch.add(entity);
+			}
+		}
+	}
+
+	@Benchmark
+	public long sequentialSum() {
+		return map.stream().mapToLong(BaseEntity::getId).sum();
+	}
+
+	@Benchmark
+	public long parallelSum() {
+		return map.parallelStream().mapToLong(BaseEntity::getId).sum();
+	}
+
+	@Benchmark
+	public long copyParallelSum() {
+		return new ArrayList<>(map).parallelStream().mapToLong(BaseEntity::getId).sum();
+	}
+
+	@Benchmark
+	public boolean bulkReplace() {
+		return map.addAll(batch);
+	}
+
+	@Benchmark
+	public boolean singleReplace() {
+		for (BaseEntity entity : batch) {
+			map.add(entity);
+		}
+		return true;
+	}
+
+	@Benchmark
+	public boolean bulkRemoveAndAdd() {
+		map.removeAll(batch);
+		return map.addAll(batch);
+	}
+
+	@Benchmark
+	public boolean singleRemoveAndAdd() {
+		for (BaseEntity entity : batch) {
+			map.remove(entity);
+		}
+		for (BaseEntity entity : batch) {
+			map.add(entity);
+		}
+		return true;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IdentityMapStreamBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
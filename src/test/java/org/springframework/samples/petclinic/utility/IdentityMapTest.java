@@ -0,0 +1,157 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityMapTest {
+
+	private final IdentityMap<Pet> map = new IdentityMap<>();
+
+	@Test
+	void addingAnEntityWithAKnownIdReplacesIt() {
+		map.add(pet(1, "Leo"));
+		map.add(pet(2, "Basil"));
+
+		Pet renamed = pet(1, "Rosy");
+		map.add(renamed);
+
+		assertEquals(2, map.size());
+		assertSame(renamed, map.get(1));
+		assertEquals(Arrays.asList(renamed, map.get(2)), new ArrayList<>(map));
+	}
+
+	@Test
+	void removeMovesTheLastEntityIntoTheGap() {
+		for (int id = 1; id <= 4; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+
+		assertTrue(map.remove(pet(2, "any")));
+		assertFalse(map.remove(pet(2, "any")));
+
+		assertEquals(Arrays.asList(1, 4, 3), ids(map));
+		assertFalse(map.contains(pet(2, "any")));
+		assertSame(map.get(4), map.toArray()[1]);
+	}
+
+	@Test
+	void iteratorRemovalVisitsEveryEntityOnce() {
+		for (int id = 1; id <= 6; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		List<Integer> visited = new ArrayList<>();
+
+		for (Iterator<Pet> iterator = map.iterator(); iterator.hasNext(); ) {
+			Pet pet = iterator.next();
+			visited.add(pet.getId());
+			if (pet.getId() % 2 == 0) {
+				iterator.remove();
+			}
+		}
+
+		visited.sort(Comparator.naturalOrder());
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), visited);
+		assertEquals(Arrays.asList(1, 5, 3), ids(map));
+		assertNull(map.get(4));
+	}
+
+	@Test
+	void retainAllKeepsOnlyTheGivenEntities() {
+		Pet leo = pet(1, "Leo");
+		Pet basil = pet(2, "Basil");
+		map.add(leo);
+		map.add(basil);
+		map.add(pet(3, "Rosy"));
+
+		assertTrue(map.retainAll(Arrays.asList(leo, basil)));
+		assertFalse(map.retainAll(Arrays.asList(leo, basil)));
+
+		assertEquals(2, map.size());
+		assertTrue(map.containsAll(Arrays.asList(leo, basil)));
+	}
+
+	@Test
+	void sortKeepsTheIndexInStep() {
+		map.add(pet(1, "Rosy"));
+		map.add(pet(2, "Basil"));
+		map.add(pet(3, "Leo"));
+
+		map.sort(Comparator.comparing(Pet::getName));
+		map.remove(pet(2, "any"));
+
+		assertEquals(Arrays.asList(1, 3), ids(map));
+		assertEquals("Rosy", map.get(1).getName());
+	}
+
+	@Test
+	void addingWhileIteratingFails() {
+		map.add(pet(1, "Leo"));
+		Iterator<Pet> iterator = map.iterator();
+
+		map.add(pet(2, "Basil"));
+
+		assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+
+	@Test
+	void parallelStreamSeesEveryEntityOnce() {
+		for (int id = 1; id <= 1000; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		Spliterator<Pet> spliterator = map.spliterator();
+
+		assertEquals(500500, map.parallelStream().mapToInt(Pet::getId).sum());
+		assertEquals(ids(map), map.stream().map(Pet::getId).collect(Collectors.toList()));
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.DISTINCT));
+		assertEquals(500, spliterator.trySplit().estimateSize());
+		assertEquals(500, spliterator.estimateSize());
+	}
+
+	@Test
+	void largeBatchesAreAddedLikeSmallOnes() {
+		int count = IdentityMap.PARALLEL_THRESHOLD * 2;
+		map.add(pet(0, "first"));
+		List<Pet> batch = IntStream.range(1, count + 1).mapToObj(id -> pet(id, "pet " + id))
+			.collect(Collectors.toList());
+		batch.add(pet(0, "replaced"));
+
+		assertTrue(map.addAll(batch));
+		assertEquals(count + 1, map.size());
+		assertEquals("replaced", map.get(0).getName());
+
+		List<Pet> odd = batch.stream().filter(pet -> pet.getId() % 2 == 1).collect(Collectors.toList());
+		assertTrue(map.removeAll(odd));
+		assertFalse(map.removeAll(odd));
+
+		assertEquals(count / 2 + 1, map.size());
+		assertNull(map.get(1));
+		assertTrue(map.stream().allMatch(pet -> pet.getId() % 2 == 0));
+		assertEquals("pet 2", map.get(2).getName());
+	}
+
+	private static List<Integer> ids(IdentityMap<Pet> map) {
+		List<Integer> ids = new ArrayList<>();
+		map.forEach(pet -> ids.add(pet.getId()));
+		return ids;
+	}
+
+	private static Pet pet(int id, String name) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setName(name);
+		return pet;
+	}
+
+}
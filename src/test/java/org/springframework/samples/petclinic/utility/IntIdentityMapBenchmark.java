@@ -0,0 +1,113 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link IntIdentityMap} with {@link IdentityMap}. The single-entity operations
+ * pick random ids of a filled map; every removal is followed by adding the entity back.
+ * <p>
+ * {@code build} fills an empty map with {@code size} entities that were created up
+ * front. Run it with {@code -prof gc} to see the memory each implementation allocates per
+ * map: {@code gc.alloc.rate.norm} divided by {@code size} is the number of bytes per
+ * entry, including the tables left behind while growing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntIdentityMapBenchmark {
+
+	private static final int LOOKUPS = 1 << 12;
+
+	@Param({ "IdentityMap", "IntIdentityMap" })
+	String implementation;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	private BaseEntity[] entities;
+
+	private Collection<BaseEntity> map;
+
+	private BaseEntity[] lookups;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		entities = new BaseEntity[size];
+		for (int id = 0; id < size; id++) {
+			BaseEntity entity = new BaseEntity();
+			entity.setId(id);
+			entities[id] = entity;
+		}
+		map = build();
+		Random random = new Random(42);
+		lookups = new BaseEntity[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookups[i] = entities[random.nextInt(size)];
+		}
+	}
+
+	private Collection<BaseEntity> newMap() {
+		return implementation.equals("IdentityMap") ? new IdentityMap<>() : new IntIdentityMap<>();
+	}
+
+	private BaseEntity nextLookup() {
+		return lookups[next++ & (LOOKUPS - 1)];
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 3, batchSize = 1)
+	@Measurement(iterations = 5, batchSize = 1)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Collection<BaseEntity> build() {
+		Collection<BaseEntity> built = newMap();
+		for (BaseEntity entity : entities) {
+			built.add(entity);
+		}
+		return built;
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return map.contains(nextLookup());
+	}
+
+	@Benchmark
+	public boolean replace() {
+		return map.add(nextLookup());
+	}
+
+	@Benchmark
+	public boolean removeAndAdd() {
+		BaseEntity entity = nextLookup();
+		map.remove(entity);
+		return map.add(entity);
+	}
+
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		for (BaseEntity entity : map) {
+			sum += entity.getId();
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IntIdentityMapBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
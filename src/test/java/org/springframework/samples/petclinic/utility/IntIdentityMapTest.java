@@ -0,0 +1,121 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIdentityMapTest {
+
+	private final IntIdentityMap<Pet> map = new IntIdentityMap<>();
+
+	@Test
+	void addingAnEntityWithAKnownIdReplacesIt() {
+		map.add(pet(1, "Leo"));
+		map.add(pet(2, "Basil"));
+
+		Pet renamed = pet(1, "Rosy");
+		map.add(renamed);
+
+		assertEquals(2, map.size());
+		assertSame(renamed, map.get(1));
+		assertTrue(map.contains(pet(2, "any")));
+	}
+
+	@Test
+	void keepsEveryEntityThroughGrowthAndRemovals() {
+		for (int id = -5000; id < 5000; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		for (int id = -5000; id < 5000; id += 2) {
+			assertTrue(map.remove(pet(id, "any")));
+		}
+		for (int id = 10000; id < 12000; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+
+		assertEquals(7000, map.size());
+		assertNull(map.get(-5000));
+		assertEquals("pet -4999", map.get(-4999).getName());
+		assertEquals("pet 11999", map.get(11999).getName());
+		assertEquals(7000, new ArrayList<>(map).size());
+	}
+
+	@Test
+	void alternatingRemovalsAndAdditionsRarelyRebuildTheIndex() {
+		// an index of 16 slots for 8 entities used to be rebuilt by every add after a removal
+		for (int id = 0; id < 8; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		int rebuilds = map.getIndexRebuilds();
+
+		for (int id = 8; id < 1008; id++) {
+			assertTrue(map.remove(pet(id - 8, "any")));
+			map.add(pet(id, "pet " + id));
+		}
+
+		assertEquals(8, map.size());
+		assertEquals("pet 1000", map.get(1000).getName());
+		// at most one rebuild per as many additions as there are entities
+		assertTrue(map.getIndexRebuilds() - rebuilds <= 1000 / 8, map.getIndexRebuilds() - rebuilds + " rebuilds");
+	}
+
+	@Test
+	void iteratorRemovalVisitsEveryEntityOnce() {
+		for (int id = 1; id <= 100; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+		List<Integer> visited = new ArrayList<>();
+
+		for (Iterator<Pet> iterator = map.iterator(); iterator.hasNext(); ) {
+			Pet pet = iterator.next();
+			visited.add(pet.getId());
+			if (pet.getId() % 2 == 0) {
+				iterator.remove();
+			}
+		}
+
+		visited.sort(Comparator.naturalOrder());
+		assertEquals(IntStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()), visited);
+		assertEquals(50, map.size());
+		assertFalse(map.contains(pet(2, "any")));
+	}
+
+	@Test
+	void sortKeepsTheIndexInStep() {
+		map.add(pet(1, "Rosy"));
+		map.add(pet(2, "Basil"));
+		map.add(pet(3, "Leo"));
+
+		map.sort(Comparator.comparing(Pet::getName));
+
+		assertEquals(Arrays.asList("Basil", "Leo", "Rosy"),
+			map.stream().map(Pet::getName).collect(Collectors.toList()));
+		map.remove(pet(2, "any"));
+		assertEquals(Arrays.asList("Rosy", "Leo"), map.stream().map(Pet::getName).collect(Collectors.toList()));
+		assertEquals("Rosy", map.get(1).getName());
+	}
+
+	@Test
+	void entitiesWithoutIdAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> map.add(new Pet()));
+		assertFalse(map.contains(new Pet()));
+		assertFalse(map.remove(new Pet()));
+	}
+
+	private static Pet pet(int id, String name) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setName(name);
+		return pet;
+	}
+
+}
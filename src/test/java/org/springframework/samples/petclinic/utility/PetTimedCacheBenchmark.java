@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cache hits on {@link PetTimedCache} with pets kept on the heap, with and
+ * without a maximum size. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} should
+ * stay at zero bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetTimedCacheBenchmark {
+
+	@Param({ "1024", "65536" })
+	int size;
+
+	@Param({ "0", "1000000" })
+	long maximumSize;
+
+	private CacheScheduler scheduler;
+
+	private PetTimedCache cache;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		scheduler = new CacheScheduler();
+		scheduler.start();
+		cache = new PetTimedCache(new PetTimedCacheStorageBenchmark.GeneratingPetRepository(), scheduler,
+				new CacheSettings().setExpiryMillis(TimeUnit.HOURS.toMillis(1)).setMaximumSize(maximumSize));
+		for (int id = 0; id < size; id++) {
+			cache.get(id);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		scheduler.stop();
+	}
+
+	@Benchmark
+	public Pet hit() {
+		next = (next + 1) & (size - 1);
+		return cache.get(next);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PetTimedCacheBenchmark.class.getSimpleName())
+				.addProfiler("gc").build()).run();
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures {@link PetTimedCache#get} on a cache holding {@code size} pets, kept either on
+ * the heap or in an {@link OffHeapStore}. When a trial ends the heap in use after a full
+ * collection and the time the collectors spent during the trial are printed; run with
+ * {@code -prof gc} for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-XX:MaxDirectMemorySize=2g" })
+public class PetTimedCacheStorageBenchmark {
+
+	@Param({ "1000000" })
+	int size;
+
+	@Param({ "0", "1024" })
+	int offHeapMegabytes;
+
+	private CacheScheduler scheduler;
+
+	private PetTimedCache cache;
+
+	private long gcMillisBefore;
+
+	private long gcCountBefore;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		scheduler = new CacheScheduler();
+		scheduler.start();
+		cache = new PetTimedCache(new GeneratingPetRepository(), scheduler, new CacheSettings()
+				.setExpiryMillis(TimeUnit.HOURS.toMillis(1)).setOffHeapMegabytes(offHeapMegabytes));
+		for (int id = 0; id < size; id++) {
+			cache.get(id);
+		}
+		System.gc();
+		gcMillisBefore = gcMillis();
+		gcCountBefore = gcCount();
+	}
+
+	@TearDown(Level.Trial)
+	public void report(BenchmarkParams params) {
+		long gcMillis = gcMillis() - gcMillisBefore;
+		long gcCount = gcCount() - gcCountBefore;
+		System.gc();
+		System.gc();
+		long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		scheduler.stop();
+		System.out.printf("%n%s off-heap=%dMB: heap after full GC %d MB, %d collections taking %d ms%n",
+				params.getBenchmark(), offHeapMegabytes, heap >> 20, gcCount, gcMillis);
+	}
+
+	@Benchmark
+	public Pet get() {
+		return cache.get(ThreadLocalRandom.current().nextInt(size));
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += collector.getCollectionTime();
+		}
+		return millis;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += collector.getCollectionCount();
+		}
+		return count;
+	}
+
+	static class GeneratingPetRepository implements PetRepository {
+
+		private final PetType cat = new PetType();
+
+		GeneratingPetRepository() {
+			cat.setId(1);
+			cat.setName("cat");
+		}
+
+		@Override
+		public List<PetType> findPetTypes() {
+			return Collections.singletonList(cat);
+		}
+
+		@Override
+		public Pet findById(Integer id) {
+			Owner owner = new Owner();
+			owner.setId(id);
+			owner.setFirstName("George");
+			owner.setLastName("Franklin" + id);
+			owner.setAddress("110 W. Liberty St.");
+			owner.setCity("Madison");
+			owner.setTelephone("6085551023");
+			Pet pet = new Pet();
+			pet.setId(id);
+			pet.setName("Leo" + id);
+			pet.setBirthDate(LocalDate.of(2010, 9, 7));
+			pet.setType(cat);
+			owner.addPet(pet);
+			return pet;
+		}
+
+		@Override
+		public List<Pet> findByIdIn(Collection<Integer> ids) {
+			return ids.stream().map(this::findById).collect(Collectors.toList());
+		}
+
+		@Override
+		public void save(Pet pet) {
+		}
+
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PetTimedCacheStorageBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -1,7 +1,285 @@
 package org.springframework.samples.petclinic.utility;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.util.DummyEntityGenerator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
-// todo
 class PetTimedCacheTest {
+
+	private static final int THREADS = 32;
+
+	private PetRepository repository;
+
+	private Pet pet;
+
+	private CacheScheduler scheduler;
+
+	@BeforeEach
+	void setup() {
+		repository = mock(PetRepository.class);
+		pet = DummyEntityGenerator.getAlreadySavedInDatabaseDummyPet();
+		scheduler = new CacheScheduler();
+		scheduler.start();
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		scheduler.stop();
+	}
+
+	@Test
+	void servesRepeatedLookupsFromMemory() {
+		when(repository.findById(1)).thenReturn(pet);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+
+		assertSame(pet, cache.get(1));
+		assertSame(pet, cache.get(1));
+
+		verify(repository, times(1)).findById(1);
+		assertEquals(1, cache.getStatistics().getHitCount());
+		assertEquals(1, cache.getStatistics().getMissCount());
+	}
+
+	@Test
+	void expiredPetIsLoadedAgain() throws Exception {
+		when(repository.findById(1)).thenReturn(pet);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, new CacheSettings().setExpiryMillis(100));
+
+		cache.get(1);
+		Thread.sleep(200);
+		cache.get(1);
+
+		verify(repository, times(2)).findById(1);
+		cache.destroy();
+	}
+
+	@Test
+	void concurrentMissesShareOneRepositoryCall() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(repository.findById(1)).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return pet;
+		});
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch started = new CountDownLatch(THREADS);
+		List<Future<Pet>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				started.countDown();
+				return cache.get(1);
+			}));
+		}
+		started.await();
+		Thread.sleep(100);
+		release.countDown();
+
+		for (Future<Pet> result : results) {
+			assertSame(pet, result.get(5, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+		verify(repository, times(1)).findById(1);
+	}
+
+	@Test
+	void savedPetIsWrittenThrough() {
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+
+		cache.save(pet);
+
+		assertSame(pet, cache.get(pet.getId()));
+		verify(repository, never()).findById(anyInt());
+	}
+
+	@Test
+	void slowLoadDoesNotOverwriteConcurrentSave() throws Exception {
+		Pet stale = DummyEntityGenerator.getAlreadySavedInDatabaseDummyPet();
+		CountDownLatch loadStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(repository.findById(1)).thenAnswer(invocation -> {
+			loadStarted.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return stale;
+		});
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<Pet> slowLoad = executor.submit(() -> cache.get(1));
+		loadStarted.await();
+		cache.save(pet);
+		release.countDown();
+
+		assertSame(stale, slowLoad.get(5, TimeUnit.SECONDS));
+		assertSame(pet, cache.get(1));
+		executor.shutdown();
+	}
+
+	@Test
+	void hitPastRefreshPointReloadsInBackground() throws Exception {
+		Pet reloaded = DummyEntityGenerator.getAlreadySavedInDatabaseDummyPet();
+		when(repository.findById(1)).thenReturn(pet, reloaded);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, new CacheSettings().setRefreshAhead(0.01));
+
+		assertSame(pet, cache.get(1));
+		Thread.sleep(200);
+		assertSame(pet, cache.get(1));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cache.getStatistics().getRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertSame(reloaded, cache.get(1));
+		assertEquals(1, cache.getStatistics().getMissCount());
+		assertEquals(1, cache.getStatistics().getRefreshCount());
+	}
+
+	@Test
+	void refreshFindingNothingDoesNotRemoveConcurrentSave() throws Exception {
+		Pet saved = DummyEntityGenerator.getAlreadySavedInDatabaseDummyPet();
+		saved.setId(1);
+		CountDownLatch refreshStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(repository.findById(1)).thenReturn(pet).thenAnswer(invocation -> {
+			refreshStarted.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		});
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, new CacheSettings().setRefreshAhead(0.01));
+
+		cache.get(1);
+		Thread.sleep(200);
+		cache.get(1);
+		assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+		cache.save(saved);
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cache.getStatistics().getRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, cache.getStatistics().getRefreshCount());
+		assertSame(saved, cache.get(1));
+	}
+
+	@Test
+	void offHeapCacheReturnsCopiesOfTheStoredPet() {
+		pet.setType(DummyEntityGenerator.getNewDummyPetType());
+		DummyEntityGenerator.getNewDummyOwner().addPet(pet);
+		when(repository.findById(1)).thenReturn(pet);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, new CacheSettings().setOffHeapMegabytes(1));
+
+		cache.get(1);
+		Pet cached = cache.get(1);
+
+		verify(repository, times(1)).findById(1);
+		assertNotSame(pet, cached);
+		assertEquals(pet.getName(), cached.getName());
+		assertEquals(pet.getBirthDate(), cached.getBirthDate());
+		assertEquals(pet.getType().getName(), cached.getType().getName());
+		assertEquals(pet.getOwner().getLastName(), cached.getOwner().getLastName());
+	}
+
+	@Test
+	void snapshotWarmsTheNextCache(@TempDir Path directory) {
+		CacheSettings settings = new CacheSettings().setSnapshotFile(directory.resolve("pets.snapshot").toString())
+			.setSnapshotMaxAgeMillis(60000);
+		when(repository.findById(1)).thenReturn(pet);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, settings);
+		cache.get(1);
+		cache.destroy();
+
+		PetTimedCache restarted = new PetTimedCache(repository, scheduler, settings);
+
+		assertEquals(pet.getName(), restarted.get(1).getName());
+		verify(repository, times(1)).findById(1);
+		assertEquals(1, restarted.getStatistics().getHitCount());
+	}
+
+	@Test
+	void snapshotKeepsTheRemainingTimeToLive(@TempDir Path directory) throws Exception {
+		CacheSettings settings = new CacheSettings().setSnapshotFile(directory.resolve("pets.snapshot").toString())
+			.setSnapshotMaxAgeMillis(60000).setExpiryMillis(400);
+		when(repository.findById(1)).thenReturn(pet);
+		PetTimedCache cache = new PetTimedCache(repository, scheduler, settings);
+		cache.get(1);
+		Thread.sleep(250);
+		cache.destroy();
+
+		PetTimedCache restarted = new PetTimedCache(repository, scheduler, settings);
+		Thread.sleep(250);
+		restarted.get(1);
+
+		verify(repository, times(2)).findById(1);
+		restarted.destroy();
+	}
+
+	@Test
+	void getAllLoadsOnlyMissesInOneQuery() {
+		Pet other = DummyEntityGenerator.getNewDummyPet();
+		other.setId(2);
+		when(repository.findById(1)).thenReturn(pet);
+		when(repository.findByIdIn(anyCollection())).thenReturn(Arrays.asList(other));
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+		cache.get(1);
+
+		Map<Integer, Pet> found = cache.getAll(Arrays.asList(2, 1, 3));
+
+		assertEquals(Arrays.asList(2, 1), new ArrayList<>(found.keySet()));
+		assertSame(other, found.get(2));
+		assertSame(pet, found.get(1));
+		verify(repository).findByIdIn(Arrays.asList(2, 3));
+		assertSame(other, cache.get(2));
+	}
+
+	@Test
+	void getAllSplitsLargeLookupsIntoBatches() {
+		when(repository.findByIdIn(anyCollection())).thenAnswer(invocation -> {
+			Collection<Integer> ids = invocation.getArgument(0);
+			assertTrue(ids.size() <= PetTimedCache.BATCH_SIZE);
+			return ids.stream().map(id -> {
+				Pet loaded = DummyEntityGenerator.getNewDummyPet();
+				loaded.setId(id);
+				return loaded;
+			}).collect(Collectors.toList());
+		});
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+		List<Integer> ids = IntStream.range(0, PetTimedCache.BATCH_SIZE * 2 + 1).boxed().collect(Collectors.toList());
+
+		assertEquals(ids.size(), cache.getAll(ids).size());
+		verify(repository, times(3)).findByIdIn(anyCollection());
+		verify(repository, never()).findById(anyInt());
+	}
+
+	@Test
+	void failedLoadIsNotCached() {
+		when(repository.findById(1)).thenThrow(new IllegalStateException("database down"));
+		PetTimedCache cache = new PetTimedCache(repository, scheduler);
+
+		assertThrows(IllegalStateException.class, () -> cache.get(1));
+		assertThrows(IllegalStateException.class, () -> cache.get(1));
+		verify(repository, times(2)).findById(1);
+	}
+
 }
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SimpleDI} on a small graph of four types: looking up a created
+ * instance against creating it by reflection, and creating the whole graph in a new
+ * container against refreshing a Spring {@link AnnotationConfigApplicationContext}
+ * with the same types and against wiring it by reflection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleDIBenchmark {
+
+	private SimpleDI container;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		container = SimpleDI.newDIContainer();
+		container.getInstanceOf(Controller.class);
+	}
+
+	@Benchmark
+	public Object getInstanceOf() throws Exception {
+		return container.getInstanceOf(Service.class);
+	}
+
+	@Benchmark
+	public Object reflectionNewInstance() throws Exception {
+		Repository repository = Repository.class.getConstructor().newInstance();
+		Cache cache = Cache.class.getConstructor(Repository.class).newInstance(repository);
+		return Service.class.getConstructor(Repository.class, Cache.class).newInstance(repository, cache);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	public Object containerBootstrap() throws Exception {
+		return SimpleDI.newDIContainer().getInstanceOf(Controller.class);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	public Object reflectionBootstrap() throws Exception {
+		Object repository = construct(Repository.class);
+		Object cache = construct(Cache.class, repository);
+		Object service = construct(Service.class, repository, cache);
+		return construct(Controller.class, service, cache);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	public Object springBootstrap() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Repository.class,
+			Cache.class, Service.class, Controller.class);
+		Object controller = context.getBean(Controller.class);
+		context.close();
+		return controller;
+	}
+
+	private static Object construct(Class<?> type, Object... arguments) throws Exception {
+		Constructor<?> constructor = type.getConstructors()[0];
+		return constructor.newInstance(arguments);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SimpleDIBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	public static class Repository {
+
+	}
+
+	public static class Cache {
+
+		public Cache(Repository repository) {
+		}
+
+	}
+
+	public static class Service {
+
+		public Service(Repository repository, Cache cache) {
+		}
+
+	}
+
+	public static class Controller {
+
+		public Controller(Service service, Cache cache) {
+		}
+
+	}
+
+}
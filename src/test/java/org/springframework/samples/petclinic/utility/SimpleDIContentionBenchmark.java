@@ -0,0 +1,115 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures four threads each creating a different type for the first time in a new
+ * {@link SimpleDI} container, with the per-type creation locks of the container against
+ * one creation lock for the whole container. Each type takes a millisecond to construct,
+ * like a bean that reads its initial state; with one lock the four creations run one
+ * after the other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleDIContentionBenchmark {
+
+	private static final List<Class<?>> TYPES = Arrays.asList(OwnersIndex.class, PetsIndex.class,
+		VetsIndex.class, VisitsIndex.class);
+
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(TYPES.size());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public Object perTypeLocks() throws Exception {
+		SimpleDI container = SimpleDI.newDIContainer();
+		List<Future<Object>> created = new ArrayList<>();
+		for (Class<?> type : TYPES) {
+			created.add(executor.submit(() -> container.getInstanceOf(type)));
+		}
+		return await(created);
+	}
+
+	@Benchmark
+	public Object singleLock() throws Exception {
+		SimpleDI container = SimpleDI.newDIContainer();
+		Object lock = new Object();
+		List<Future<Object>> created = new ArrayList<>();
+		for (Class<?> type : TYPES) {
+			created.add(executor.submit(() -> {
+				synchronized (lock) {
+					return container.getInstanceOf(type);
+				}
+			}));
+		}
+		return await(created);
+	}
+
+	private static Object await(List<Future<Object>> created) throws Exception {
+		Object last = null;
+		for (Future<Object> instance : created) {
+			last = instance.get();
+		}
+		return last;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SimpleDIContentionBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	public static class OwnersIndex {
+
+		public OwnersIndex() throws InterruptedException {
+			Thread.sleep(1);
+		}
+
+	}
+
+	public static class PetsIndex {
+
+		public PetsIndex() throws InterruptedException {
+			Thread.sleep(1);
+		}
+
+	}
+
+	public static class VetsIndex {
+
+		public VetsIndex() throws InterruptedException {
+			Thread.sleep(1);
+		}
+
+	}
+
+	public static class VisitsIndex {
+
+		public VisitsIndex() throws InterruptedException {
+			Thread.sleep(1);
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating a synthetic graph of {@code beans} types with {@link SimpleDI}, one
+ * after another through {@link SimpleDI#getInstanceOf} and in parallel through
+ * {@link SimpleDI#initialize} on a pool of {@code parallelism} threads. Every type
+ * depends on up to three types with a lower number and waits one millisecond in its
+ * constructor, like a repository or a cache that connects to something. The types are
+ * compiled when the benchmark starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimpleDIStartupBenchmark {
+
+	private static final int MAX_DEPENDENCIES = 3;
+
+	@Param({ "200" })
+	int beans;
+
+	@Param({ "4", "16" })
+	int parallelism;
+
+	private Class<?>[] types;
+
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		types = compileGraph(beans);
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Object sequential() throws Exception {
+		SimpleDI container = SimpleDI.newDIContainer();
+		for (Class<?> type : types) {
+			container.getInstanceOf(type);
+		}
+		return container;
+	}
+
+	@Benchmark
+	public StartupTimeline parallel() throws Exception {
+		return SimpleDI.newDIContainer().initialize(pool, types);
+	}
+
+	private static Class<?>[] compileGraph(int beans) throws IOException, ClassNotFoundException {
+		Path directory = Files.createTempDirectory("beans");
+		Random random = new Random(42);
+		List<String> sources = new ArrayList<>();
+		for (int bean = 0; bean < beans; bean++) {
+			StringBuilder parameters = new StringBuilder();
+			int dependencies = bean == 0 ? 0 : random.nextInt(MAX_DEPENDENCIES + 1);
+			for (int i = 0; i < dependencies; i++) {
+				parameters.append(i > 0 ? ", " : "").append("Bean").append(random.nextInt(bean)).append(" d").append(i);
+			}
+			Path source = directory.resolve("Bean" + bean + ".java");
+			Files.write(source, ("public class Bean" + bean + " { public Bean" + bean + "(" + parameters + ") {"
+				+ " java.util.concurrent.locks.LockSupport.parkNanos(1_000_000L); } }").getBytes());
+			sources.add(source.toString());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		List<String> arguments = new ArrayList<>();
+		arguments.add("-d");
+		arguments.add(directory.toString());
+		arguments.addAll(sources);
+		if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+			throw new IllegalStateException("Cannot compile the beans in " + directory);
+		}
+		ClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() });
+		Class<?>[] types = new Class<?>[beans];
+		for (int bean = 0; bean < beans; bean++) {
+			types[bean] = loader.loadClass("Bean" + bean);
+		}
+		return types;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SimpleDIStartupBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
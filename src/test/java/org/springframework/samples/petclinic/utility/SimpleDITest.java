@@ -1,19 +1,37 @@
 package org.springframework.samples.petclinic.utility;
 
-import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.samples.petclinic.owner.PetRepository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
-// todo pass these tests
-@Disabled
 class SimpleDITest {
 
+	@BeforeEach
+	void resetCounters() {
+		Counter.CREATED.set(0);
+		Slow.CREATED.set(0);
+	}
+
 	@Test
 	public void testProvideByInstance() throws Exception {
 		SimpleDI diContainer = SimpleDI.getDIContainer();
@@ -34,4 +52,172 @@ class SimpleDITest {
 		});
 		assertNotNull(simpleDi.getInstanceOf(PetRepository.class));
 	}
+
+	@Test
+	public void testConstructorAutowiring() throws Exception {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+		PetRepository petRepoMock = mock(PetRepository.class);
+		simpleDi.provideByInstance(PetRepository.class, petRepoMock);
+
+		Report report = (Report) simpleDi.getInstanceOf(Report.class);
+
+		assertSame(petRepoMock, report.pets);
+		assertSame(report.counter, ((Counter) simpleDi.getInstanceOf(Counter.class)));
+		assertSame(report, simpleDi.getInstanceOf(Report.class));
+		assertEquals(1, Counter.CREATED.get());
+	}
+
+	@Test
+	public void testMissingProviderAndCycleAreReported() {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+
+		assertThrows(IllegalStateException.class, () -> simpleDi.getInstanceOf(PetRepository.class));
+		IllegalStateException cycle = assertThrows(IllegalStateException.class,
+			() -> simpleDi.getInstanceOf(Chicken.class));
+		assertTrue(cycle.getMessage().contains("Chicken -> Egg -> Chicken"), cycle.getMessage());
+	}
+
+	@Test
+	public void testInitializeCreatesDependenciesFirst() throws Exception {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+		simpleDi.provideByInstance(PetRepository.class, mock(PetRepository.class));
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		StartupTimeline timeline = simpleDi.initialize(pool, Dashboard.class);
+		pool.shutdown();
+
+		Dashboard dashboard = (Dashboard) simpleDi.getInstanceOf(Dashboard.class);
+		assertSame(dashboard.report.counter, dashboard.counter);
+		List<Class<?>> order = timeline.getSteps().stream().map(StartupTimeline.Step::getType)
+			.collect(Collectors.toList());
+		assertEquals(3, order.size());
+		assertTrue(order.indexOf(Counter.class) < order.indexOf(Report.class));
+		assertEquals(Dashboard.class, order.get(2));
+		assertTrue(timeline.toString().startsWith("Initialized 3 types"), timeline.toString());
+	}
+
+	@Test
+	public void testInitializeFindsCyclesBeforeCreatingAnything() {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+
+		IllegalStateException cycle = assertThrows(IllegalStateException.class,
+			() -> simpleDi.initialize(Counter.class, Egg.class));
+
+		assertTrue(cycle.getMessage().contains("Egg -> Chicken -> Egg"), cycle.getMessage());
+	}
+
+	@Test
+	public void testConcurrentLookupsCreateOnce() throws Exception {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Object>> lookups = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			lookups.add(executor.submit(() -> {
+				start.await();
+				return simpleDi.getInstanceOf(Slow.class);
+			}));
+		}
+		start.countDown();
+		Object first = lookups.get(0).get(30, TimeUnit.SECONDS);
+		for (Future<Object> lookup : lookups) {
+			assertSame(first, lookup.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+
+		assertEquals(1, Slow.CREATED.get());
+		assertEquals(1, Counter.CREATED.get());
+	}
+
+	@Test
+	public void testSupplierParametersAreCreatedOnFirstUse() throws Exception {
+		SimpleDI simpleDi = SimpleDI.newDIContainer();
+		AtomicInteger created = new AtomicInteger();
+		simpleDi.provideByAConstructorFunction(PetRepository.class, () -> {
+			created.incrementAndGet();
+			return mock(PetRepository.class);
+		});
+
+		simpleDi.initialize(Importer.class);
+		Importer importer = (Importer) simpleDi.getInstanceOf(Importer.class);
+
+		assertEquals(0, created.get());
+		assertSame(importer.pets.get(), simpleDi.getInstanceOf(PetRepository.class));
+		assertEquals(1, created.get());
+	}
+
+	static class Counter {
+
+		static final AtomicInteger CREATED = new AtomicInteger();
+
+		Counter() {
+			CREATED.incrementAndGet();
+		}
+
+	}
+
+	static class Report {
+
+		final PetRepository pets;
+
+		final Counter counter;
+
+		public Report(PetRepository pets, Counter counter) {
+			this.pets = pets;
+			this.counter = counter;
+		}
+
+	}
+
+	static class Dashboard {
+
+		final Report report;
+
+		final Counter counter;
+
+		public Dashboard(Report report, Counter counter) {
+			this.report = report;
+			this.counter = counter;
+		}
+
+	}
+
+	static class Slow {
+
+		static final AtomicInteger CREATED = new AtomicInteger();
+
+		final Counter counter;
+
+		public Slow(Counter counter) throws InterruptedException {
+			CREATED.incrementAndGet();
+			Thread.sleep(50);
+			this.counter = counter;
+		}
+
+	}
+
+	static class Importer {
+
+		final Supplier<PetRepository> pets;
+
+		public Importer(Supplier<PetRepository> pets) {
+			this.pets = pets;
+		}
+
+	}
+
+	static class Chicken {
+
+		public Chicken(Egg egg) {
+		}
+
+	}
+
+	static class Egg {
+
+		public Egg(Chicken chicken) {
+		}
+
+	}
+
 }
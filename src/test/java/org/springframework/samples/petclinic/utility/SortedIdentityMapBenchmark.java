@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading pets in name order from a {@link SortedIdentityMap} with sorting an
+ * {@link IdentityMap} on every read, the way {@code Owner.getPets} does. {@code readHeavy}
+ * renames one pet for every {@code readsPerWrite} reads of the first ten pets;
+ * {@code all} reads every pet in order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortedIdentityMapBenchmark {
+
+	private static final int TOP = 10;
+
+	private static final MutableSortDefinition BY_NAME = new MutableSortDefinition("name", true, true);
+
+	@Param({ "sortOnRead", "sorted" })
+	String implementation;
+
+	@Param({ "10", "1000", "100000" })
+	int size;
+
+	@Param({ "9" })
+	int readsPerWrite;
+
+	private IdentityMap<Pet> unsorted;
+
+	private SortedIdentityMap<Pet> sorted;
+
+	private Random random;
+
+	private int operations;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		unsorted = new IdentityMap<>();
+		sorted = new SortedIdentityMap<>(new PropertyComparator<>(BY_NAME));
+		random = new Random(42);
+		for (int id = 0; id < size; id++) {
+			Pet pet = randomPet(id);
+			unsorted.add(pet);
+			sorted.add(pet);
+		}
+	}
+
+	private Pet randomPet(int id) {
+		Pet pet = new Pet();
+		pet.setId(id);
+		pet.setName("pet " + random.nextInt());
+		return pet;
+	}
+
+	@Benchmark
+	public List<Pet> readHeavy() {
+		if (operations++ % (readsPerWrite + 1) == 0) {
+			Pet pet = randomPet(random.nextInt(size));
+			if (implementation.equals("sorted")) {
+				sorted.add(pet);
+			}
+			else {
+				unsorted.add(pet);
+			}
+		}
+		if (implementation.equals("sorted")) {
+			return sorted.first(TOP);
+		}
+		return sortOnRead().subList(0, Math.min(TOP, size));
+	}
+
+	@Benchmark
+	public List<Pet> all() {
+		if (implementation.equals("sorted")) {
+			return new ArrayList<>(sorted);
+		}
+		return sortOnRead();
+	}
+
+	private List<Pet> sortOnRead() {
+		List<Pet> pets = new ArrayList<>(unsorted);
+		PropertyComparator.sort(pets, BY_NAME);
+		return pets;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SortedIdentityMapBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.owner.Pet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedIdentityMapTest {
+
+	private final SortedIdentityMap<Pet> map = new SortedIdentityMap<>(Comparator.comparing(Pet::getName));
+
+	@Test
+	void entitiesAreKeptInOrderAndTiesAreOrderedById() {
+		map.add(pet(3, "Rosy"));
+		map.add(pet(2, "Leo"));
+		map.add(pet(1, "Rosy"));
+		map.add(pet(4, "Basil"));
+
+		assertEquals(Arrays.asList(4, 2, 1, 3), ids(map));
+		assertEquals(Arrays.asList(4, 2), ids(map.first(2)));
+		assertEquals(4, map.first(10).size());
+	}
+
+	@Test
+	void addingAnEntityWithAKnownIdMovesItToItsNewPosition() {
+		map.add(pet(1, "Basil"));
+		map.add(pet(2, "Leo"));
+
+		Pet renamed = pet(1, "Rosy");
+		map.add(renamed);
+
+		assertEquals(2, map.size());
+		assertSame(renamed, map.get(1));
+		assertEquals(Arrays.asList(2, 1), ids(map));
+	}
+
+	@Test
+	void entityWhoseSortKeyChangedInPlaceCanBeReadded() {
+		Pet basil = pet(1, "Basil");
+		map.add(basil);
+		map.add(pet(2, "Leo"));
+
+		basil.setName("Rosy");
+		map.add(basil);
+
+		assertEquals(Arrays.asList(2, 1), ids(map));
+		assertTrue(map.remove(pet(1, "any")));
+		assertEquals(Arrays.asList(2), ids(map));
+	}
+
+	@Test
+	void rangeSelectsBySortKeyOnly() {
+		map.add(pet(1, "Basil"));
+		map.add(pet(2, "Leo"));
+		map.add(pet(3, "Lucky"));
+		map.add(pet(4, "Rosy"));
+
+		Collection<Pet> range = map.range(bound("L"), bound("M"));
+
+		assertEquals(Arrays.asList(2, 3), ids(range));
+		assertEquals(Arrays.asList(2, 3), ids(map.range(bound("Leo"), bound("Rosy"))));
+		assertThrows(UnsupportedOperationException.class, () -> range.add(pet(5, "Lola")));
+		assertThrows(IllegalArgumentException.class, () -> map.range(pet(1, "A"), bound("Z")));
+	}
+
+	@Test
+	void iteratorRemovalUpdatesTheIndex() {
+		for (int id = 1; id <= 4; id++) {
+			map.add(pet(id, "pet " + id));
+		}
+
+		for (Iterator<Pet> iterator = map.iterator(); iterator.hasNext(); ) {
+			if (iterator.next().getId() % 2 == 0) {
+				iterator.remove();
+			}
+		}
+
+		assertEquals(Arrays.asList(1, 3), ids(map));
+		assertNull(map.get(2));
+		assertFalse(map.contains(pet(4, "any")));
+		assertThrows(IllegalArgumentException.class, () -> map.add(new Pet()));
+	}
+
+	private static List<Integer> ids(Collection<Pet> pets) {
+		List<Integer> ids = new ArrayList<>();
+		pets.forEach(pet -> ids.add(pet.getId()));
+		return ids;
+	}
+
+	private static Pet bound(String name) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		return pet;
+	}
+
+	private static Pet pet(int id, String name) {
+		Pet pet = bound(name);
+		pet.setId(id);
+		return pet;
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final TimedCache.Loader<String> loader = key -> {
+		loads.incrementAndGet();
+		return key > 0 ? "value " + key : null;
+	};
+
+	private CacheScheduler scheduler;
+
+	@BeforeEach
+	void startScheduler() {
+		scheduler = new CacheScheduler();
+		scheduler.start();
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		scheduler.stop();
+	}
+
+	@Test
+	void settingsAreBoundFromTheCacheProperties() {
+		MockEnvironment environment = new MockEnvironment()
+			.withProperty("petclinic.cache.owners.expiry-millis", "5000")
+			.withProperty("petclinic.cache.owners.maximum-size", "100")
+			.withProperty("petclinic.cache.owners.refresh-ahead", "0.5");
+
+		CacheSettings owners = CacheSettings.of(environment, "owners");
+		CacheSettings visits = CacheSettings.of(environment, "visits");
+
+		assertEquals(5000, owners.getExpiryMillis());
+		assertEquals(100, owners.getMaximumSize());
+		assertEquals(0.5, owners.getRefreshAhead());
+		assertEquals(new CacheSettings().getExpiryMillis(), visits.getExpiryMillis());
+		assertEquals(0, visits.getMaximumSize());
+	}
+
+	@Test
+	void cacheWithoutCodecCannotKeepValuesOffTheHeap() {
+		assertThrows(IllegalArgumentException.class, () -> new TimedCache<>("strings", loader, scheduler,
+			new CacheSettings().setOffHeapMegabytes(1)));
+		assertThrows(IllegalArgumentException.class, () -> new TimedCache<>("strings", loader, scheduler,
+			new CacheSettings().setSnapshotFile("strings.snapshot")));
+	}
+
+	@Test
+	void missingValuesAreNotCached() {
+		TimedCache<String> cache = new TimedCache<>("strings", loader, scheduler, new CacheSettings());
+
+		assertNull(cache.get(0));
+		assertNull(cache.get(0));
+
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void getAllFallsBackToSingleLoads() {
+		TimedCache<String> cache = new TimedCache<>("strings", loader, scheduler, new CacheSettings());
+		cache.get(1);
+
+		Map<Integer, String> found = cache.getAll(Arrays.asList(1, 2, 0, 3));
+
+		assertEquals(Arrays.asList(1, 2, 3), Arrays.asList(found.keySet().toArray()));
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	void writtenValueReplacesTheCachedOne() {
+		TimedCache<String> cache = new TimedCache<>("strings", loader, scheduler, new CacheSettings());
+		cache.get(1);
+
+		cache.put(1, "written");
+
+		assertEquals("written", cache.get(1));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getStatistics().getPutCount());
+	}
+
+	@Test
+	void invalidatedValueIsLoadedAgain() {
+		TimedCache<String> cache = new TimedCache<>("strings", loader, scheduler, new CacheSettings());
+		cache.get(1);
+
+		cache.invalidate(1);
+
+		assertEquals("value 1", cache.get(1));
+		assertEquals(2, loads.get());
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one cleaner pass of the former full key scan of {@link PetTimedCache} with
+ * advancing a {@link TimingWheel} by one tick. Every expired entry is re-inserted, so the
+ * number of live entries stays at {@code size}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+	private static final long TTL = 10_000;
+
+	private static final int TICKS = 64;
+
+	@Param({ "10000", "100000", "1000000" })
+	int size;
+
+	private Map<Integer, Long> writeTimes;
+
+	private TimingWheel<Integer> wheel;
+
+	private long now;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		writeTimes = new ConcurrentHashMap<>(size);
+		wheel = new TimingWheel<>(TTL, TICKS);
+		now = System.currentTimeMillis();
+		for (int key = 0; key < size; key++) {
+			long writeTime = now - TTL + (key % TTL);
+			writeTimes.put(key, writeTime);
+			wheel.schedule(key, writeTime + TTL);
+		}
+	}
+
+	@Benchmark
+	public int fullScan() {
+		now += wheel.getTickMillis();
+		int expired = 0;
+		for (Integer key : writeTimes.keySet()) {
+			if (now > writeTimes.get(key) + TTL) {
+				writeTimes.put(key, now);
+				expired++;
+			}
+		}
+		return expired;
+	}
+
+	@Benchmark
+	public int timingWheel() {
+		now += wheel.getTickMillis();
+		return wheel.advance(now, (key, deadline) -> {
+			writeTimes.put(key, now);
+			wheel.schedule(key, now + TTL);
+		});
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TimingWheelBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
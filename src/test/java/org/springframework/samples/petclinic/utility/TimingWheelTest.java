@@ -0,0 +1,60 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+	private static final long TTL = 1000;
+
+	private final TimingWheel<Integer> wheel = new TimingWheel<>(TTL, 16);
+
+	private final long tick = wheel.getTickMillis();
+
+	@Test
+	void keysExpireWithinTheirTimeToLivePlusOneTick() {
+		long start = System.currentTimeMillis();
+		Map<Integer, Long> deadlines = new HashMap<>();
+		for (int key = 0; key < 2 * (int) tick; key++) {
+			deadlines.put(key, start + TTL + key);
+			wheel.schedule(key, start + TTL + key);
+		}
+		Map<Integer, Long> expiredAt = new HashMap<>();
+		for (long now = start; now <= start + TTL + 3 * tick; now++) {
+			long time = now;
+			wheel.advance(now, (key, deadline) -> expiredAt.put(key, time));
+		}
+
+		assertEquals(deadlines.keySet(), expiredAt.keySet());
+		deadlines.forEach((key, deadline) -> {
+			long at = expiredAt.get(key);
+			assertTrue(at >= deadline, "key " + key + " expired early");
+			assertTrue(at < deadline + tick, "key " + key + " expired " + (at - deadline) + " ms late");
+		});
+	}
+
+	@Test
+	void keysScheduledWhileAdvancingExpireOnTheNextTick() {
+		long now = (System.currentTimeMillis() + TTL) / tick * tick;
+		wheel.schedule(1, now);
+		List<Integer> expired = new ArrayList<>();
+		wheel.advance(now, (key, deadline) -> {
+			expired.add(key);
+			if (key == 1) {
+				wheel.schedule(2, deadline);
+			}
+		});
+		assertEquals(1, expired.size());
+
+		wheel.advance(now + tick, (key, deadline) -> expired.add(key));
+		assertEquals(2, expired.size());
+		assertEquals(2, expired.get(1));
+	}
+
+}
@@ -0,0 +1,127 @@
+package org.springframework.samples.petclinic.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a Zipf distributed trace of pet ids against a cache bounded by
+ * {@link TinyLfuPolicy} and against a plain LRU of the same size. The hit ratio of each
+ * trial is printed when it ends; the score is the cost of one lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TinyLfuPolicyBenchmark {
+
+	private static final int KEY_SPACE = 1_000_000;
+
+	private static final int TRACE_LENGTH = 1 << 22;
+
+	@Param({ "1000", "10000" })
+	int maximumSize;
+
+	@Param({ "0.8", "1.0" })
+	double skew;
+
+	private int[] trace;
+
+	private int position;
+
+	private TinyLfuPolicy policy;
+
+	private Set<Integer> resident;
+
+	private Map<Integer, Boolean> lru;
+
+	private long hits;
+
+	private long lookups;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		trace = zipfTrace(KEY_SPACE, skew, TRACE_LENGTH, new Random(42));
+		policy = new TinyLfuPolicy(maximumSize, 0);
+		resident = new HashSet<>();
+		lru = new LinkedHashMap<Integer, Boolean>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	@TearDown(Level.Trial)
+	public void report(BenchmarkParams params) {
+		System.out.printf("%n%s hit ratio (size=%d, skew=%.1f): %.3f%n", params.getBenchmark(), maximumSize, skew,
+				(double) hits / lookups);
+	}
+
+	@Benchmark
+	public boolean tinyLfu() {
+		Integer key = next();
+		lookups++;
+		if (resident.contains(key)) {
+			hits++;
+			policy.recordAccess(key);
+			return true;
+		}
+		resident.add(key);
+		int evicted = policy.recordInsert(key);
+		if (evicted != TinyLfuPolicy.NONE) {
+			resident.remove(evicted);
+		}
+		return false;
+	}
+
+	@Benchmark
+	public boolean lru() {
+		Integer key = next();
+		lookups++;
+		if (lru.get(key) != null) {
+			hits++;
+			return true;
+		}
+		lru.put(key, Boolean.TRUE);
+		return false;
+	}
+
+	private Integer next() {
+		int key = trace[position];
+		position = (position + 1) & (TRACE_LENGTH - 1);
+		return key;
+	}
+
+	static int[] zipfTrace(int keySpace, double skew, int length, Random random) {
+		double[] cumulative = new double[keySpace];
+		double sum = 0;
+		for (int rank = 0; rank < keySpace; rank++) {
+			sum += 1.0 / Math.pow(rank + 1, skew);
+			cumulative[rank] = sum;
+		}
+		int[] trace = new int[length];
+		for (int i = 0; i < length; i++) {
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			trace[i] = rank >= 0 ? rank : Math.min(-rank - 1, keySpace - 1);
+		}
+		return trace;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TinyLfuPolicyBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
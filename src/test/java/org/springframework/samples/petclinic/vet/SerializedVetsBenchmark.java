@@ -0,0 +1,125 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing the vets for every {@code GET /vets}, as the controller used to,
+ * with selecting the serialized vets that {@link SerializedVets} keeps, for JSON and XML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializedVetsBenchmark {
+
+	@Param({ "6", "1000" })
+	int vets;
+
+	@Param({ "application/json", "application/xml" })
+	String format;
+
+	private Collection<Vet> all;
+
+	private List<MediaType> accepted;
+
+	private HttpMessageConverter<Object> converter;
+
+	private SerializedVets serializedVets;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		List<Specialty> specialties = new ArrayList<>();
+		for (String name : new String[] { "radiology", "surgery", "dentistry" }) {
+			Specialty specialty = new Specialty();
+			specialty.setId(specialties.size() + 1);
+			specialty.setName(name);
+			specialties.add(specialty);
+		}
+		List<Vet> list = new ArrayList<>();
+		for (int id = 1; id <= vets; id++) {
+			Vet vet = new Vet();
+			vet.setId(id);
+			vet.setFirstName("First" + id);
+			vet.setLastName("Last" + id);
+			for (int i = 0; i < id % 3; i++) {
+				vet.addSpecialty(specialties.get((id + i) % specialties.size()));
+			}
+			list.add(vet);
+		}
+		all = list;
+		MediaType mediaType = MediaType.parseMediaType(format);
+		accepted = Collections.singletonList(mediaType);
+		HttpMessageConverters converters = new HttpMessageConverters();
+		for (HttpMessageConverter<?> candidate : converters.getConverters()) {
+			if (converter == null && candidate.canWrite(Vets.class, mediaType)) {
+				converter = (HttpMessageConverter<Object>) candidate;
+			}
+		}
+		serializedVets = new SerializedVets(new VetRepository() {
+
+			@Override
+			public Collection<Vet> findAll() {
+				return all;
+			}
+
+			@Override
+			public void save(Vet vet) {
+				throw new UnsupportedOperationException();
+			}
+
+		}, new VetsGeneration(), converters);
+	}
+
+	@Benchmark
+	public byte[] serializeEveryTime() throws IOException {
+		Vets vets = new Vets();
+		vets.getVetList().addAll(all);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		HttpHeaders headers = new HttpHeaders();
+		converter.write(vets, accepted.get(0), new HttpOutputMessage() {
+
+			@Override
+			public OutputStream getBody() {
+				return body;
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				return headers;
+			}
+
+		});
+		return body.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] serializedOnce() throws HttpMediaTypeNotAcceptableException {
+		return serializedVets.select(accepted).getBytes();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SerializedVetsBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.EntityUtils;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the serialized vets with a {@code vets} cache that keeps them off the heap, so
+ * that every hit returns a new collection.
+ */
+@SpringBootTest(properties = { "petclinic.jcache.caches.vets.heap-entries=0",
+		"petclinic.jcache.caches.vets.off-heap-megabytes=4" })
+@DirtiesContext
+class SerializedVetsTests {
+
+	private static final List<MediaType> JSON = Collections.singletonList(MediaType.APPLICATION_JSON);
+
+	@Autowired
+	private SerializedVets serializedVets;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private VetService vetService;
+
+	@Test
+	void vetsOffTheHeapAreSerializedOnce() throws Exception {
+		assertThat(vets.findAll()).isNotSameAs(vets.findAll());
+
+		SerializedVets.Body first = serializedVets.select(JSON);
+
+		assertThat(serializedVets.select(JSON).getBytes()).isSameAs(first.getBytes());
+	}
+
+	@Test
+	void savedVetsAreSerializedAgain() throws Exception {
+		SerializedVets.Body before = serializedVets.select(JSON);
+		Vet carter = EntityUtils.getById(vets.findAll(), Vet.class, 1);
+		String firstName = carter.getFirstName();
+		carter.setFirstName("Jim");
+		vetService.saveVet(carter);
+		try {
+			SerializedVets.Body after = serializedVets.select(JSON);
+
+			assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+			assertThat(new String(after.getBytes(), StandardCharsets.UTF_8)).contains("\"Jim\"");
+		}
+		finally {
+			carter.setFirstName(firstName);
+			vetService.saveVet(carter);
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares finding vets by specialty through {@link SpecialtyIndex} with scanning the
+ * specialties of every vet, for 10,000 vets with one to four of 200 specialties each. It
+ * also measures updating the index after one vet changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecialtyIndexBenchmark {
+
+	private static final int VETS = 10_000;
+
+	private static final int SPECIALTIES = 200;
+
+	private final List<String> any = Arrays.asList("specialty7", "specialty42", "specialty150");
+
+	private final List<String> all = Arrays.asList("specialty7", "specialty42");
+
+	private List<Vet> vets;
+
+	private List<Vet> changed;
+
+	private List<Vet> current;
+
+	private final VetsGeneration generation = new VetsGeneration();
+
+	private SpecialtyIndex index;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		Specialty[] specialties = new Specialty[SPECIALTIES];
+		for (int id = 0; id < SPECIALTIES; id++) {
+			specialties[id] = new Specialty();
+			specialties[id].setId(id + 1);
+			specialties[id].setName("specialty" + id);
+		}
+		vets = new ArrayList<>(VETS);
+		for (int id = 1; id <= VETS; id++) {
+			Vet vet = new Vet();
+			vet.setId(id);
+			vet.setFirstName("First" + id);
+			vet.setLastName("Last" + id);
+			for (int count = 1 + random.nextInt(4); count > 0; count--) {
+				vet.addSpecialty(specialties[random.nextInt(SPECIALTIES)]);
+			}
+			vets.add(vet);
+		}
+		changed = new ArrayList<>(vets);
+		Vet vet = new Vet();
+		vet.setId(VETS / 2);
+		vet.addSpecialty(specialties[7]);
+		changed.set(VETS / 2 - 1, vet);
+		current = vets;
+		index = new SpecialtyIndex(new VetRepository() {
+
+			@Override
+			public Collection<Vet> findAll() {
+				return current;
+			}
+
+			@Override
+			public void save(Vet vet) {
+				throw new UnsupportedOperationException();
+			}
+
+		}, generation);
+	}
+
+	@Benchmark
+	public List<Vet> indexAny() {
+		return index.findWithAnySpecialty(any);
+	}
+
+	@Benchmark
+	public List<Vet> scanAny() {
+		return current.stream()
+			.filter(vet -> vet.getSpecialties().stream().anyMatch(specialty -> any.contains(specialty.getName())))
+			.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Vet> indexAll() {
+		return index.findWithAllSpecialties(all);
+	}
+
+	@Benchmark
+	public List<Vet> scanAll() {
+		return current.stream()
+			.filter(vet -> vet.getSpecialties().stream().map(Specialty::getName).collect(Collectors.toSet())
+				.containsAll(all))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Switches between the vets and a copy with one vet changed, as a save would, so every
+	 * query updates the index first.
+	 */
+	@Benchmark
+	public List<Vet> indexAnyAfterOneVetChanged() {
+		current = current == vets ? changed : vets;
+		generation.advance();
+		return index.findWithAnySpecialty(any);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SpecialtyIndexBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
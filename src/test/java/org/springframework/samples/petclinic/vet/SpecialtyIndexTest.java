@@ -0,0 +1,117 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SpecialtyIndexTest {
+
+	private final VetRepository repository = mock(VetRepository.class);
+
+	private final VetsGeneration generation = new VetsGeneration();
+
+	private final SpecialtyIndex index = new SpecialtyIndex(repository, generation);
+
+	private final Specialty radiology = specialty(1, "radiology");
+
+	private final Specialty surgery = specialty(2, "surgery");
+
+	private final Specialty dentistry = specialty(3, "dentistry");
+
+	private List<Vet> vets;
+
+	@BeforeEach
+	void setup() {
+		vets = Arrays.asList(vet(1), vet(2, radiology), vet(3, surgery, dentistry), vet(4, surgery),
+				vet(5, radiology, surgery));
+		given(repository.findAll()).willReturn(vets);
+	}
+
+	@Test
+	void vetsWithAnySpecialtyAreFoundInOrder() {
+		assertThat(ids(index.findWithAnySpecialty(Arrays.asList("surgery", "radiology")))).containsExactly(2, 3, 4, 5);
+		assertThat(ids(index.findWithAnySpecialty(Arrays.asList("dentistry", "cardiology")))).containsExactly(3);
+		assertThat(index.findWithAnySpecialty(Collections.emptyList())).isEmpty();
+	}
+
+	@Test
+	void vetsWithAllSpecialtiesAreFoundInOrder() {
+		assertThat(ids(index.findWithAllSpecialties(Arrays.asList("surgery", "radiology")))).containsExactly(5);
+		assertThat(ids(index.findWithAllSpecialties(Collections.singletonList("surgery")))).containsExactly(3, 4, 5);
+		assertThat(index.findWithAllSpecialties(Arrays.asList("surgery", "cardiology"))).isEmpty();
+	}
+
+	@Test
+	void changedAndAddedVetsUpdateTheIndex() {
+		List<Vet> before = index.findWithAnySpecialty(Collections.singletonList("surgery"));
+
+		List<Vet> updated = new ArrayList<>(vets);
+		updated.set(3, vet(4, dentistry));
+		updated.add(vet(6, surgery));
+		given(repository.findAll()).willReturn(updated);
+		generation.advance();
+
+		assertThat(ids(index.findWithAnySpecialty(Collections.singletonList("surgery")))).containsExactly(3, 5, 6);
+		assertThat(ids(index.findWithAnySpecialty(Collections.singletonList("dentistry")))).containsExactly(3, 4);
+		assertThat(ids(before)).containsExactly(3, 4, 5);
+	}
+
+	@Test
+	void newCollectionsWithoutASaveKeepTheIndex() {
+		given(repository.findAll()).willAnswer(invocation -> new ArrayList<>(vets));
+
+		List<Vet> first = index.findWithAnySpecialty(Collections.singletonList("surgery"));
+		List<Vet> second = index.findWithAnySpecialty(Collections.singletonList("surgery"));
+
+		assertThat(second).isEqualTo(first);
+		verify(repository, times(1)).findAll();
+	}
+
+	@Test
+	void removedVetsAndRenamedSpecialtiesRebuildTheIndex() {
+		index.findWithAnySpecialty(Collections.singletonList("radiology"));
+
+		Specialty imaging = specialty(1, "imaging");
+		given(repository.findAll()).willReturn(Arrays.asList(vet(2, imaging), vet(5, imaging, surgery)));
+		generation.advance();
+
+		assertThat(index.findWithAnySpecialty(Collections.singletonList("radiology"))).isEmpty();
+		assertThat(ids(index.findWithAnySpecialty(Collections.singletonList("imaging")))).containsExactly(2, 5);
+		assertThat(ids(index.findWithAllSpecialties(Arrays.asList("imaging", "surgery")))).containsExactly(5);
+	}
+
+	private static Vet vet(int id, Specialty... specialties) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName("Vet");
+		vet.setLastName(String.valueOf(id));
+		for (Specialty specialty : specialties) {
+			vet.addSpecialty(specialty);
+		}
+		return vet;
+	}
+
+	private static Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
+	private static List<Integer> ids(List<Vet> vets) {
+		List<Integer> ids = new ArrayList<>();
+		vets.forEach(vet -> ids.add(vet.getId()));
+		return ids;
+	}
+
+}
@@ -16,13 +16,17 @@
 
 package org.springframework.samples.petclinic.vet;
 
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.xpath;
 
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +34,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -37,22 +44,29 @@ import org.springframework.test.web.servlet.ResultActions;
 /**
  * Test class for the {@link VetController}
  */
-@WebMvcTest(VetController.class)
+@WebMvcTest(value = VetController.class,
+		includeFilters = @ComponentScan.Filter(value = { SerializedVets.class, SpecialtyIndex.class, VetsGeneration.class },
+				type = FilterType.ASSIGNABLE_TYPE))
 class VetControllerTests {
 
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private VetsGeneration generation;
+
 	@MockBean
 	private VetRepository vets;
 
+	private Vet helen;
+
 	@BeforeEach
 	void setup() {
 		Vet james = new Vet();
 		james.setFirstName("James");
 		james.setLastName("Carter");
 		james.setId(1);
-		Vet helen = new Vet();
+		helen = new Vet();
 		helen.setFirstName("Helen");
 		helen.setLastName("Leary");
 		helen.setId(2);
@@ -61,6 +75,7 @@ class VetControllerTests {
 		radiology.setName("radiology");
 		helen.addSpecialty(radiology);
 		given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
+		this.generation.advance();
 	}
 
 	@Test
@@ -77,4 +92,61 @@ class VetControllerTests {
 				.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testShowResourcesVetListXml() throws Exception {
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+				.andExpect(xpath("/vets/vetList[2]/id").string("2"));
+	}
+
+	@Test
+	void testShowResourcesVetListVariesByAccept() throws Exception {
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+	}
+
+	@Test
+	void testShowResourcesVetListSkipsRefusedTypes() throws Exception {
+		mockMvc.perform(get("/vets").header(HttpHeaders.ACCEPT, "application/json;q=0, */*"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML));
+		mockMvc.perform(get("/vets").header(HttpHeaders.ACCEPT, "application/json;q=0"))
+				.andExpect(status().isNotAcceptable());
+	}
+
+	@Test
+	void testShowResourcesVetListNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, startsWith("\""))).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified()).andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void testShowResourcesVetListChangesEtagWithTheVets() throws Exception {
+		String etag = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		given(this.vets.findAll()).willReturn(Lists.newArrayList(helen));
+		this.generation.advance();
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+				.andExpect(jsonPath("$.vetList[0].id").value(2));
+	}
+
+	@Test
+	void testShowResourcesVetListBySpecialty() throws Exception {
+		mockMvc.perform(get("/vets").param("specialty", "radiology", "surgery").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.vetList.length()").value(1))
+				.andExpect(jsonPath("$.vetList[0].id").value(2));
+		mockMvc.perform(get("/vets").param("specialty", "radiology", "surgery").param("match", "all")
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.vetList").isEmpty());
+		mockMvc.perform(get("/vets").param("specialty", "radiology").param("match", "some"))
+				.andExpect(status().isBadRequest());
+	}
+
 }
@@ -0,0 +1,107 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.samples.petclinic.system.VersionedCache;
+import org.springframework.samples.petclinic.service.EntityUtils;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the cached vets are only loaded again when a saved specialty requires it,
+ * by counting the SQL statements prepared after the vets were cached.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext
+class VetServiceTests {
+
+	@Autowired
+	private VetService vetService;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private SpecialtyRepository specialties;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void cacheVets() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		vets.findAll();
+		statistics.clear();
+	}
+
+	@Test
+	void vetsAreNotLoadedAgainWithoutAChange() {
+		Collection<Vet> cached = vets.findAll();
+		for (int i = 0; i < 10; i++) {
+			assertThat(vets.findAll()).isSameAs(cached);
+		}
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void vetsAreCachedThroughAVersionedCache() {
+		assertThat(cacheManager.getCache("vets")).isInstanceOf(VersionedCache.class);
+	}
+
+	@Test
+	void savedVetsAreUpdatedInTheCachedVets() {
+		int before = vets.findAll().size();
+		Vet carter = new Vet();
+		carter.setId(1);
+		carter.setFirstName("Jim");
+		carter.setLastName("Carter");
+		Vet newVet = new Vet();
+		newVet.setFirstName("Alice");
+		newVet.setLastName("Jones");
+		newVet.addSpecialty(specialties.findById(2));
+		vetService.saveVet(carter);
+		vetService.saveVet(newVet);
+		long statements = statistics.getPrepareStatementCount();
+
+		Collection<Vet> cached = vets.findAll();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+		assertThat(cached).hasSize(before + 1);
+		assertThat(EntityUtils.getById(cached, Vet.class, 1).getFirstName()).isEqualTo("Jim");
+		Vet alice = EntityUtils.getById(cached, Vet.class, newVet.getId());
+		assertThat(alice.getSpecialties()).extracting(Specialty::getName).containsExactly("surgery");
+	}
+
+	@Test
+	void changedSpecialtiesLoadTheVetsAgain() {
+		Specialty orthodontics = new Specialty();
+		orthodontics.setName("orthodontics");
+		vetService.saveSpecialty(orthodontics);
+		long statements = statistics.getPrepareStatementCount();
+		vets.findAll();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+
+		Specialty radiology = specialties.findById(1);
+		radiology.setName("imaging");
+		vetService.saveSpecialty(radiology);
+		statements = statistics.getPrepareStatementCount();
+		Collection<Vet> reloaded = vets.findAll();
+		assertThat(statistics.getPrepareStatementCount()).isGreaterThan(statements);
+		assertThat(EntityUtils.getById(reloaded, Vet.class, 2).getSpecialties()).extracting(Specialty::getName)
+				.containsExactly("imaging");
+	}
+
+}
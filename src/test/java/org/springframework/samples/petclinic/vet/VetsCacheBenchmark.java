@@ -0,0 +1,89 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Measures {@code GET /vets} as JSON with the {@code vets} cache kept in each tier, and
+ * without the cache, in which case every request queries the database. The application
+ * is started once per tier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VetsCacheBenchmark {
+
+	private static final String VETS = "petclinic.jcache.caches.vets.";
+
+	@Param({ "none", "heap", "offheap", "disk" })
+	String tier;
+
+	private Path directory;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("vets-cache");
+		context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "logging.level.root=WARN",
+				"petclinic.jcache.disk-directory=" + directory)
+			.properties(tierProperties())
+			.run();
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+	}
+
+	private String[] tierProperties() {
+		switch (tier) {
+		case "none":
+			return new String[] { "spring.cache.type=none" };
+		case "heap":
+			return new String[] { VETS + "heap-entries=10" };
+		case "offheap":
+			return new String[] { VETS + "heap-entries=0", VETS + "off-heap-megabytes=16" };
+		case "disk":
+			return new String[] { VETS + "heap-entries=0", VETS + "disk-megabytes=64" };
+		default:
+			throw new IllegalArgumentException("Unknown tier " + tier);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.close();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public MvcResult vets() throws Exception {
+		return mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(VetsCacheBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.samples.petclinic.system.VersionedCache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VetsCacheUpdaterTest {
+
+	private final Cache cache = new VersionedCache(new ConcurrentMapCache("vets"));
+
+	private final VetsGeneration generation = new VetsGeneration();
+
+	private final VetsCacheUpdater updater = new VetsCacheUpdater(cacheManager(cache), generation);
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void loadOverlappingAVetSaveIsNotCached() throws Exception {
+		List<Vet> stale = Collections.singletonList(vet(1, "James"));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch saved = new CountDownLatch(1);
+		Future<Collection<Vet>> load = executor.submit(() -> cache.get(SimpleKey.EMPTY, () -> {
+			loading.countDown();
+			saved.await();
+			return stale;
+		}));
+		loading.await();
+
+		updater.vetSaved(new VetSavedEvent(vet(2, "Helen")));
+		saved.countDown();
+
+		assertThat(load.get(10, TimeUnit.SECONDS)).isSameAs(stale);
+		assertThat(cache.get(SimpleKey.EMPTY)).isNull();
+		assertThat(generation.get()).isEqualTo(1);
+	}
+
+	@Test
+	void loadOverlappingASpecialtySaveDoesNotReplaceTheEviction() throws Exception {
+		cache.put(SimpleKey.EMPTY, Collections.singletonList(vet(1, "James")));
+		cache.evict(SimpleKey.EMPTY);
+		List<Vet> stale = Arrays.asList(vet(1, "James"), vet(2, "Helen"));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch saved = new CountDownLatch(1);
+		Future<Collection<Vet>> load = executor.submit(() -> cache.get(SimpleKey.EMPTY, () -> {
+			loading.countDown();
+			saved.await();
+			return stale;
+		}));
+		loading.await();
+
+		Specialty radiology = new Specialty();
+		radiology.setId(1);
+		radiology.setName("imaging");
+		updater.specialtySaved(new SpecialtySavedEvent(radiology, false));
+		saved.countDown();
+
+		assertThat(load.get(10, TimeUnit.SECONDS)).isSameAs(stale);
+		assertThat(cache.get(SimpleKey.EMPTY)).isNull();
+	}
+
+	@Test
+	void loadWithoutASaveIsCached() {
+		List<Vet> vets = Collections.singletonList(vet(1, "James"));
+
+		cache.get(SimpleKey.EMPTY, () -> vets);
+
+		assertThat(cache.get(SimpleKey.EMPTY).get()).isSameAs(vets);
+	}
+
+	private static SimpleCacheManager cacheManager(Cache cache) {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Collections.singletonList(cache));
+		cacheManager.afterPropertiesSet();
+		return cacheManager;
+	}
+
+	private static Vet vet(int id, String firstName) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName(firstName);
+		return vet;
+	}
+
+}